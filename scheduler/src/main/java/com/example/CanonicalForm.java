@@ -0,0 +1,195 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Canonical Form
+ * ==============
+ * Maps a completed schedule to one representative of the schedules that
+ * differ from it only in ways the venue optimizer cannot see:
+ *
+ *   - week order          — venue targets are season totals
+ *   - row order in a week — both rows of a column play at the same venue
+ *   - equal court groups  — two groups of the same size whose columns fill
+ *                           rotation blocks of the same widths trade places
+ *                           (BP and Gerry in the 7-court preset, any two
+ *                           groups in Config 3)
+ *
+ * Each week is rewritten under every such slot permutation and the
+ * lexicographically smallest kept; the weeks are then sorted.  Schedules
+ * with the same canonical bytes get the same venue score, so one of them
+ * is enough.  Team numbers are never relabelled: which team plays whom is
+ * part of what is saved.
+ *
+ * hash() folds the canonical bytes into 128 bits for SolutionDedup.
+ */
+final class CanonicalForm {
+
+    private static final int SLOTS = MatchMatrix.MATCHES_PER_WEEK;
+
+    // WEEK_SYMMETRIES[k][slot] → the slot whose match moves to slot under
+    // symmetry k; [0] is the identity.  Derived from Config at class load.
+    static final int[][] WEEK_SYMMETRIES;
+
+    static {
+        int[][] rows   = Config.getScheduleGroups();
+        int[]   row    = new int[SLOTS]; // [slot] → schedule row
+        int[]   column = new int[SLOTS]; // [slot] → schedule column
+        for (int g = 0; g < rows.length; g++)
+            for (int j = 0; j < rows[g].length; j++) {
+                row[rows[g][j]]    = g;
+                column[rows[g][j]] = j;
+            }
+
+        // Court group k owns the next courtGroups[k].size() slots of a week
+        List<List<Integer>> courtGroups = Config.getCourtGroups();
+        int[] groupStart = new int[courtGroups.size()];
+        int[] groupSize  = new int[courtGroups.size()];
+        for (int k = 0, s = 0; k < groupStart.length; s += groupSize[k++]) {
+            groupStart[k] = s;
+            groupSize[k]  = courtGroups.get(k).size();
+        }
+
+        Set<List<Integer>> found = new LinkedHashSet<>();
+        for (int[] rowPerm : permutations(rows.length, g -> rows[g].length)) {
+            for (int[] groupPerm : permutations(groupStart.length, k -> groupSize[k])) {
+                int[] sigma = new int[SLOTS];
+                for (int k = 0; k < groupStart.length; k++) {
+                    for (int i = 0; i < groupSize[k]; i++) {
+                        int from = groupStart[groupPerm[k]] + i;
+                        sigma[groupStart[k] + i] = from;
+                    }
+                }
+                for (int s = 0; s < SLOTS; s++) sigma[s] = rows[rowPerm[row[sigma[s]]]][column[sigma[s]]];
+                if (keepsVenues(sigma, column)) found.add(Arrays.stream(sigma).boxed().toList());
+            }
+        }
+        WEEK_SYMMETRIES = found.stream().map(p -> p.stream().mapToInt(Integer::intValue).toArray())
+                               .toArray(int[][]::new);
+    }
+
+    private CanonicalForm() {}
+
+    /** The canonical bytes of a completed schedule: weeks × slots × {lower, higher team}. */
+    static byte[] of(MatchMatrix matches) {
+        return of(matches.weekView());
+    }
+
+    /** As of(matches), from its MatchMatrix.weekView(). */
+    static byte[] of(int[][] weeks) {
+        byte[][] best  = new byte[weeks.length][];
+        byte[]   trial = new byte[2 * SLOTS];
+        for (int w = 0; w < weeks.length; w++) {
+            for (int[] sigma : WEEK_SYMMETRIES) {
+                for (int s = 0; s < SLOTS; s++) {
+                    trial[2 * s]     = (byte) weeks[w][2 * sigma[s]];
+                    trial[2 * s + 1] = (byte) weeks[w][2 * sigma[s] + 1];
+                }
+                if (best[w] == null || Arrays.compare(trial, best[w]) < 0) best[w] = trial.clone();
+            }
+        }
+        Arrays.sort(best, Arrays::compare);
+
+        byte[] out = new byte[weeks.length * 2 * SLOTS];
+        for (int w = 0; w < best.length; w++) System.arraycopy(best[w], 0, out, w * 2 * SLOTS, 2 * SLOTS);
+        return out;
+    }
+
+    // ── 128-bit hash ──────────────────────────────────────────────────────────
+
+    /**
+     * 128-bit hash of canonical bytes, {high, low}: MurmurHash3 x64-128's
+     * block mix and finalizer over the bytes zero-padded to 16.  Canonical
+     * forms of one config all have the same length, so padding is unambiguous.
+     */
+    static long[] hash(byte[] canonical) {
+        final long c1 = 0x87C37B91114253D5L;
+        final long c2 = 0x4CF5AD432745937FL;
+
+        long h1 = 0, h2 = 0;
+        for (int at = 0; at < canonical.length; at += 16) {
+            long k1 = word(canonical, at);
+            long k2 = word(canonical, at + 8);
+
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52DCE729;
+
+            k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495AB5;
+        }
+
+        h1 ^= canonical.length;
+        h2 ^= canonical.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[] {h1, h2};
+    }
+
+    /** Little-endian 8 bytes of b from at, zero past the end. */
+    private static long word(byte[] b, int at) {
+        long k = 0;
+        for (int i = Math.min(at + 8, b.length) - 1; i >= at; i--) k = (k << 8) | (b[i] & 0xFF);
+        return k;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    // ── Symmetry construction ─────────────────────────────────────────────────
+
+    private interface Size { int of(int i); }
+
+    /** Every permutation of 0..n-1 that only exchanges items of equal size. */
+    private static List<int[]> permutations(int n, Size size) {
+        List<int[]> out = new ArrayList<>();
+        permute(new int[n], new boolean[n], 0, size, out);
+        return out;
+    }
+
+    private static void permute(int[] perm, boolean[] used, int at, Size size, List<int[]> out) {
+        if (at == perm.length) {
+            out.add(perm.clone());
+            return;
+        }
+        for (int i = 0; i < perm.length; i++) {
+            if (used[i] || size.of(i) != size.of(at)) continue;
+            used[i]  = true;
+            perm[at] = i;
+            permute(perm, used, at + 1, size, out);
+            used[i]  = false;
+        }
+    }
+
+    /**
+     * True if sigma moves whole rotation blocks onto blocks of the same
+     * width, so every venue assignment of the original has a counterpart
+     * of the permuted week with the same per-team counts.
+     */
+    private static boolean keepsVenues(int[] sigma, int[] column) {
+        int[] block = VenueOptimizer.COLUMN_BLOCK;
+        int[] width = VenueOptimizer.BLOCK_WIDTH;
+        int[] onto  = new int[width.length];
+        Arrays.fill(onto, -1);
+        for (int s = 0; s < sigma.length; s++) {
+            int from = block[column[sigma[s]]];
+            int to   = block[column[s]];
+            if (onto[from] < 0) onto[from] = to;
+            if (onto[from] != to || width[from] != width[to]) return false;
+        }
+        return true;
+    }
+}
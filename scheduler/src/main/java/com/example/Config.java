@@ -20,9 +20,13 @@ import java.util.List;
  *                         within-week slot indices (0-based) that belong
  *                         to that row, in left-to-right column order.
  *    - COURT_NAMES      : column headers printed above the schedule.
- *    - MAIN_COURTS      : how many of the leftmost columns are "Main".
- *    - BP_COURTS        : how many of the next columns are "BP".
- *    - GERRY_COURTS     : how many of the next columns are "Gerry".
+ *    - VENUE_NAMES      : the venues, in column order.
+ *    - VENUE_COURTS     : how many columns each venue owns, left to right
+ *                         (e.g. {4, 2, 2} = 4 Main, then 2 BP, then 2 Gerry).
+ *    - ROTATION_BLOCKS  : widths of the column blocks the venue optimizer
+ *                         may move between venues each week, left to right.
+ *                         A block moves whole and must fit inside one venue;
+ *                         {2, 2, 2, 2} lets any pair of columns play Main.
  */
 public class Config {
 
@@ -47,9 +51,9 @@ public class Config {
     private static final String[] C1_COURT_NAMES = {
         "Main A", "Main B", "Main C", "Main D", "BP East", "BP West", "Gerry East", "Gerry West"
     };
-    private static final int C1_MAIN_COURTS  = 4;
-    private static final int C1_BP_COURTS    = 2;
-    private static final int C1_GERRY_COURTS = 2;
+    private static final String[] C1_VENUE_NAMES     = {"Main", "BP", "Gerry"};
+    private static final int[]    C1_VENUE_COURTS    = {4, 2, 2};
+    private static final int[]    C1_ROTATION_BLOCKS = {2, 2, 2, 2};
 
     // Config 2 — 14 teams, 3 Main + 2 BP + 2 Gerry
     private static final int     C2_TEAMS  = 14;
@@ -66,9 +70,9 @@ public class Config {
     private static final String[] C2_COURT_NAMES = {
         "Main A", "Main B", "Main C", "BP East", "BP West", "Gerry East", "Gerry West"
     };
-    private static final int C2_MAIN_COURTS  = 3;
-    private static final int C2_BP_COURTS    = 2;
-    private static final int C2_GERRY_COURTS = 2;
+    private static final String[] C2_VENUE_NAMES     = {"Main", "BP", "Gerry"};
+    private static final int[]    C2_VENUE_COURTS    = {3, 2, 2};
+    private static final int[]    C2_ROTATION_BLOCKS = {3, 2, 2};
 
     // Config 3 — 16 teams, 4 x 2-court groups (all equal)
     private static final int     C3_TEAMS  = 16;
@@ -86,9 +90,9 @@ public class Config {
     private static final String[] C3_COURT_NAMES = {
         "Main A", "Main B", "Main C", "Main D", "BP East", "BP West", "Gerry East", "Gerry West"
     };
-    private static final int C3_MAIN_COURTS  = 4;
-    private static final int C3_BP_COURTS    = 2;
-    private static final int C3_GERRY_COURTS = 2;
+    private static final String[] C3_VENUE_NAMES     = {"Main", "BP", "Gerry"};
+    private static final int[]    C3_VENUE_COURTS    = {4, 2, 2};
+    private static final int[]    C3_ROTATION_BLOCKS = {2, 2, 2, 2};
 
     // ----------------------------------------------------------------
     //  Accessors — the rest of the code reads only from here
@@ -134,27 +138,41 @@ public class Config {
         }
     }
 
-    public static int getMainCourts() {
+    public static String[] getVenueNames() {
         switch (ACTIVE_CONFIG) {
-            case 2:  return C2_MAIN_COURTS;
-            case 3:  return C3_MAIN_COURTS;
-            default: return C1_MAIN_COURTS;
+            case 2:  return C2_VENUE_NAMES;
+            case 3:  return C3_VENUE_NAMES;
+            default: return C1_VENUE_NAMES;
         }
     }
 
-    public static int getBpCourts() {
+    public static int[] getVenueCourts() {
         switch (ACTIVE_CONFIG) {
-            case 2:  return C2_BP_COURTS;
-            case 3:  return C3_BP_COURTS;
-            default: return C1_BP_COURTS;
+            case 2:  return C2_VENUE_COURTS;
+            case 3:  return C3_VENUE_COURTS;
+            default: return C1_VENUE_COURTS;
         }
     }
 
-    public static int getGerryCourts() {
+    public static int[] getRotationBlocks() {
         switch (ACTIVE_CONFIG) {
-            case 2:  return C2_GERRY_COURTS;
-            case 3:  return C3_GERRY_COURTS;
-            default: return C1_GERRY_COURTS;
+            case 2:  return C2_ROTATION_BLOCKS;
+            case 3:  return C3_ROTATION_BLOCKS;
+            default: return C1_ROTATION_BLOCKS;
         }
     }
+
+    // Court counts of the first three venues, for the Main/BP/Gerry
+    // summaries printed by the Main* drivers (0 if the venue is absent).
+
+    public static int getMainCourts()  { return venueCourts(0); }
+
+    public static int getBpCourts()    { return venueCourts(1); }
+
+    public static int getGerryCourts() { return venueCourts(2); }
+
+    private static int venueCourts(int v) {
+        int[] courts = getVenueCourts();
+        return v < courts.length ? courts[v] : 0;
+    }
 }
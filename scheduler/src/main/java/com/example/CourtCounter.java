@@ -1,93 +1,368 @@
 package com.example;
 
-import java.util.*;
-import java.io.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+/**
+ * Court Counter
+ * =============
+ * Counts the games each team plays at each venue in schedule files — the
+ * matches_ and venue_schedule_ files the schedulers write, or hand-edited
+ * copies.  Every "Week N" row is a tab-separated run of "T a vs T b" cells
+ * in court order, and court c belongs to the venue owning column c in
+ * Config (VENUE_COURTS, left to right).  Other lines and cells are skipped.
+ *
+ *   java CourtCounter <file>
+ *       per-team table for one file
+ *   java CourtCounter <dir> [--json] [--glob=<pattern>]
+ *       every file under dir whose name matches pattern (default
+ *       matches_*.txt): a CSV row per file, or with --json one aggregate
+ *       report — per-team venue totals, min, max and mean, and how many
+ *       files have each number of teams in range
+ *
+ * Files are memory-mapped and parsed in parallel by a hand-rolled
+ * tokenizer that allocates nothing per line or cell.
+ */
 public class CourtCounter {
 
-    static final int MAIN_START  = 4, MAIN_END  = 6;
-    static final int BP_START    = 2, BP_END    = 3;
-    static final int GERRY_START = 0, GERRY_END = 1;
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+
+    static final String   DEFAULT_GLOB  = "matches_*.txt";
+    static final String[] VENUES        = Config.getVenueNames();
+    static final int      N_VENUES      = VENUES.length;
+    static final int      N_TEAMS       = Config.getTeams();
+    static final int      ROWS_PER_WEEK = Config.getScheduleGroups().length;
+
+    // COLUMN_VENUE[c] → venue of court column c, from Config.getVenueCourts()
+    static final int[] COLUMN_VENUE;
+
+    static {
+        int[] courts = Config.getVenueCourts();
+        int   total  = 0;
+        for (int c : courts) total += c;
+        COLUMN_VENUE = new int[total];
+        for (int v = 0, c = 0; v < courts.length; c += courts[v++])
+            Arrays.fill(COLUMN_VENUE, c, c + courts[v], v);
+    }
 
     public static void main(String[] args) throws IOException {
         if (args.length < 1) {
             System.err.println("Usage: java CourtCounter <filename>");
+            System.err.println("       java CourtCounter <directory> [--json] [--glob=<pattern>]");
             System.exit(1);
         }
 
-        List<String> scheduleLines = new ArrayList<>();
-        boolean foundWeek1 = false;
+        Path    path = Path.of(args[0]);
+        boolean json = false;
+        String  glob = DEFAULT_GLOB;
+        for (int i = 1; i < args.length; i++) {
+            if      (args[i].equals("--json"))       json = true;
+            else if (args[i].startsWith("--glob="))  glob = args[i].substring("--glob=".length());
+            else {
+                System.err.println("Unknown option " + args[i]);
+                System.exit(1);
+            }
+        }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(args[0]))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (!foundWeek1) {
-                    if (line.startsWith("Week 1")) foundWeek1 = true;
-                    else continue;
-                }
-                if (line.startsWith("Week")) scheduleLines.add(line);
+        if (!Files.isDirectory(path)) {
+            int[] counts = new int[N_TEAMS * N_VENUES];
+            int   rows   = count(path, counts);
+            if (rows < 0) {
+                System.err.println(path + ": team numbers above T" + N_TEAMS + " — not a schedule for this config");
+                System.exit(1);
             }
+            printTable(counts);
+            return;
         }
 
-        // Find highest team number dynamically
-        int maxTeam = 0;
-        for (String line : scheduleLines) {
-            String[] cols = line.split("\t");
-            for (int c = 1; c < cols.length; c++) {
-                int[] teams = parseMatchup(cols[c]);
-                if (teams != null) {
-                    maxTeam = Math.max(maxTeam, Math.max(teams[0], teams[1]));
-                }
+        Report report = scan(path, glob);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        if (json) report.writeJson(out);
+        else      report.writeCsv(out);
+        out.flush();
+    }
+
+    // ── Directory mode ────────────────────────────────────────────────────────
+
+    /** Per-file venue counts of every matching file under dir. */
+    static final class Report {
+        final Path   dir;
+        final Path[] files;
+        final int[]  weeks;  // [file] → schedule weeks, -1 if unreadable or not this config
+        final byte[] counts; // [(file·N_TEAMS + team)·N_VENUES + venue]
+
+        Report(Path dir, Path[] files) {
+            this.dir    = dir;
+            this.files  = files;
+            this.weeks  = new int[files.length];
+            this.counts = new byte[Math.multiplyExact(files.length, N_TEAMS * N_VENUES)];
+        }
+
+        int count(int file, int team, int venue) {
+            return counts[(file * N_TEAMS + team) * N_VENUES + venue] & 0xFF;
+        }
+
+        /** Teams within venue targets, or -1 unless the file is a full season of this config. */
+        int teamsInRange(int file) {
+            if (weeks[file] != Config.getWeeks()) return -1;
+            int   n    = 0;
+            int[] team = new int[N_VENUES];
+            for (int t = 0; t < N_TEAMS; t++) {
+                for (int v = 0; v < N_VENUES; v++) team[v] = count(file, t, v);
+                if (VenueOptimizer.inRange(team)) n++;
             }
+            return n;
         }
 
-        int[] main  = new int[maxTeam + 1];
-        int[] bp    = new int[maxTeam + 1];
-        int[] gerry = new int[maxTeam + 1];
-
-        for (String line : scheduleLines) {
-            String[] cols = line.split("\t");
-            for (int c = 1; c < cols.length; c++) {
-                int courtIndex = c - 1;
-                int[] teams = parseMatchup(cols[c]);
-                if (teams == null) continue;
-
-                if (courtIndex >= MAIN_START && courtIndex <= MAIN_END) {
-                    main[teams[0]]++;
-                    main[teams[1]]++;
-                } else if (courtIndex >= BP_START && courtIndex <= BP_END) {
-                    bp[teams[0]]++;
-                    bp[teams[1]]++;
-                } else if (courtIndex >= GERRY_START && courtIndex <= GERRY_END) {
-                    gerry[teams[0]]++;
-                    gerry[teams[1]]++;
+        /** One row per file, in path order; teams_in_range is empty unless a full season. */
+        void writeCsv(PrintWriter out) {
+            out.print("file,weeks");
+            for (int t = 1; t <= N_TEAMS; t++)
+                for (String venue : VENUES) out.print(",T" + t + " " + venue);
+            out.println(",teams_in_range");
+
+            for (int f = 0; f < files.length; f++) {
+                if (weeks[f] < 0) continue;
+                out.print(csvField(dir.relativize(files[f]).toString()));
+                out.print(',');
+                out.print(weeks[f]);
+                for (int t = 0; t < N_TEAMS; t++)
+                    for (int v = 0; v < N_VENUES; v++) {
+                        out.print(',');
+                        out.print(count(f, t, v));
+                    }
+                out.print(',');
+                int inRange = teamsInRange(f);
+                if (inRange >= 0) out.print(inRange);
+                out.println();
+            }
+        }
+
+        void writeJson(PrintWriter out) {
+            int    parsed  = 0;
+            long[] total   = new long[N_TEAMS * N_VENUES];
+            long[] min     = new long[N_TEAMS * N_VENUES];
+            long[] max     = new long[N_TEAMS * N_VENUES];
+            int[]  inRange = new int[N_TEAMS + 1];
+            Arrays.fill(min, Long.MAX_VALUE);
+            for (int f = 0; f < files.length; f++) {
+                if (weeks[f] < 0) continue;
+                parsed++;
+                for (int i = 0; i < total.length; i++) {
+                    int c = counts[f * total.length + i] & 0xFF;
+                    total[i] += c;
+                    min[i]    = Math.min(min[i], c);
+                    max[i]    = Math.max(max[i], c);
                 }
+                int n = teamsInRange(f);
+                if (n >= 0) inRange[n]++;
+            }
+            if (parsed == 0) Arrays.fill(min, 0);
+
+            out.printf("{\"directory\":\"%s\",\"files\":%d,\"skipped\":%d,\"seasonWeeks\":%d,\"venues\":[",
+                       jsonEscape(dir.toString()), parsed, files.length - parsed, Config.getWeeks());
+            for (int v = 0; v < N_VENUES; v++) out.print((v > 0 ? "," : "") + "\"" + VENUES[v] + "\"");
+            out.print("],\"teamsInRange\":{");
+            boolean first = true;
+            for (int n = N_TEAMS; n >= 0; n--) {
+                if (inRange[n] == 0) continue;
+                out.print((first ? "" : ",") + "\"" + n + "\":" + inRange[n]);
+                first = false;
             }
+            out.print("},\"teams\":[");
+            for (int t = 0; t < N_TEAMS; t++) {
+                if (t > 0) out.print(',');
+                out.printf("{\"team\":%d,\"total\":%s,\"min\":%s,\"max\":%s,\"mean\":[",
+                           t + 1, jsonArray(total, t), jsonArray(min, t), jsonArray(max, t));
+                for (int v = 0; v < N_VENUES; v++)
+                    out.printf("%s%.3f", v > 0 ? "," : "", parsed > 0 ? (double) total[t * N_VENUES + v] / parsed : 0.0);
+                out.print("]}");
+            }
+            out.println("]}");
         }
 
-        System.out.printf("     %-6s%-4s%-6s%n", "Main", "BP", "Gerry");
-        for (int t = 1; t <= maxTeam; t++) {
-            System.out.printf("T%-2d  %6d%4d%6d%n", t, main[t], bp[t], gerry[t]);
+        /** team's per-venue values of a, as a JSON array. */
+        private static String jsonArray(long[] a, int team) {
+            StringBuilder sb = new StringBuilder("[");
+            for (int v = 0; v < N_VENUES; v++) sb.append(v > 0 ? "," : "").append(a[team * N_VENUES + v]);
+            return sb.append(']').toString();
         }
     }
 
-    static int[] parseMatchup(String s) {
-        s = s.trim();
-        String[] parts = s.split("\\s+vs\\s+");
-        if (parts.length != 2) return null;
-        int t1 = parseTeam(parts[0]);
-        int t2 = parseTeam(parts[1]);
-        if (t1 < 0 || t2 < 0) return null;
-        return new int[]{t1, t2};
+    /** Walks dir for files whose name matches glob and counts them in parallel. */
+    static Report scan(Path dir, String glob) throws IOException {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        Path[]      files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(p -> matcher.matches(p.getFileName()) && Files.isRegularFile(p))
+                        .sorted()
+                        .toArray(Path[]::new);
+        }
+
+        Report report = new Report(dir, files);
+        IntStream.range(0, files.length).parallel().forEach(f -> {
+            int[] counts = new int[N_TEAMS * N_VENUES];
+            int   rows;
+            try {
+                rows = count(files[f], counts);
+                if (rows < 0) System.err.println(files[f] + ": team numbers above T" + N_TEAMS + ", skipped");
+            } catch (IOException e) {
+                System.err.println(files[f] + ": " + e.getMessage() + ", skipped");
+                rows = -1;
+            }
+            report.weeks[f] = rows < 0 ? -1 : rows / ROWS_PER_WEEK;
+            for (int i = 0; i < counts.length; i++)
+                report.counts[f * counts.length + i] = (byte) Math.min(counts[i], 255);
+        });
+        return report;
+    }
+
+    // ── Tokenizer ─────────────────────────────────────────────────────────────
+
+    /** Receives the "T a vs T b" cells of a schedule, teams 1-based as printed; false stops the scan. */
+    interface MatchupSink {
+        boolean matchup(int row, int column, int a, int b);
     }
 
-    static int parseTeam(String s) {
-        s = s.trim().replaceAll("\\s+", "");
-        if (!s.startsWith("T")) return -1;
-        try {
-            return Integer.parseInt(s.substring(1));
-        } catch (NumberFormatException e) {
-            return -1;
+    /**
+     * Maps file and adds its games to counts[(team-1)·N_VENUES + venue].
+     * Returns the number of Week rows, or -1 if a team number is out of range.
+     */
+    static int count(Path file, int[] counts) throws IOException {
+        return forEachMatchup(file, (row, column, a, b) -> {
+            if (column >= COLUMN_VENUE.length) return true;
+            if (a < 1 || b < 1 || a > N_TEAMS || b > N_TEAMS) return false;
+            counts[(a - 1) * N_VENUES + COLUMN_VENUE[column]]++;
+            counts[(b - 1) * N_VENUES + COLUMN_VENUE[column]]++;
+            return true;
+        });
+    }
+
+    /**
+     * Maps file and hands every matchup of its Week rows to sink, row by row
+     * and left to right.  Returns the number of Week rows, or -1 if the sink
+     * stopped the scan.
+     */
+    static int forEachMatchup(Path file, MatchupSink sink) throws IOException {
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) return 0;
+            return forEachMatchup(channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena), sink);
+        }
+    }
+
+    /** As forEachMatchup(file, sink), over text already in memory. */
+    static int forEachMatchup(MemorySegment text, MatchupSink sink) {
+        long n    = text.byteSize();
+        int  rows = 0;
+        for (long line = 0, end; line < n; line = end + 1) {
+            end = line;
+            while (end < n && text.get(BYTE, end) != '\n') end++;
+            long stop = end > line && text.get(BYTE, end - 1) == '\r' ? end - 1 : end;
+            if (!isWeekRow(text, line, stop)) continue;
+
+            long cell = line;
+            while (text.get(BYTE, cell) != '\t') cell++;
+            for (int column = 0; cell < stop; column++) {
+                long from = cell + 1;
+                long to   = from;
+                while (to < stop && text.get(BYTE, to) != '\t') to++;
+                cell = to;
+
+                int match = matchup(text, from, to);
+                if (match >= 0 && !sink.matchup(rows, column, match >>> 16, match & 0xFFFF)) return -1;
+            }
+            rows++;
+        }
+        return rows;
+    }
+
+    /** "Week", spaces, digits, then a tab. */
+    private static boolean isWeekRow(MemorySegment s, long from, long to) {
+        if (to - from < 6) return false;
+        if (s.get(BYTE, from) != 'W' || s.get(BYTE, from + 1) != 'e' || s.get(BYTE, from + 2) != 'e'
+                || s.get(BYTE, from + 3) != 'k') return false;
+        long p = from + 4;
+        while (p < to && s.get(BYTE, p) == ' ') p++;
+        long digits = p;
+        while (p < to && isDigit(s.get(BYTE, p))) p++;
+        return p > digits && p < to && s.get(BYTE, p) == '\t';
+    }
+
+    /** "T a vs T b" with any spaces around the parts, as a << 16 | b; -1 for anything else. */
+    private static int matchup(MemorySegment s, long p, long to) {
+        int a = 0, b = 0;
+        p = skipSpaces(s, p, to);
+        if (p >= to || s.get(BYTE, p++) != 'T') return -1;
+        p = skipSpaces(s, p, to);
+        long digits = p;
+        while (p < to && isDigit(s.get(BYTE, p))) a = a * 10 + (s.get(BYTE, p++) - '0');
+        if (p == digits || a > 0xFFFF) return -1;
+
+        p = skipSpaces(s, p, to);
+        if (p + 2 > to || s.get(BYTE, p) != 'v' || s.get(BYTE, p + 1) != 's') return -1;
+        p = skipSpaces(s, p + 2, to);
+
+        if (p >= to || s.get(BYTE, p++) != 'T') return -1;
+        p = skipSpaces(s, p, to);
+        digits = p;
+        while (p < to && isDigit(s.get(BYTE, p))) b = b * 10 + (s.get(BYTE, p++) - '0');
+        if (p == digits || b > 0xFFFF) return -1;
+        return skipSpaces(s, p, to) == to ? a << 16 | b : -1;
+    }
+
+    private static long skipSpaces(MemorySegment s, long p, long to) {
+        while (p < to && s.get(BYTE, p) == ' ') p++;
+        return p;
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // ── Output ────────────────────────────────────────────────────────────────
+
+    static void printTable(int[] counts) {
+        StringBuilder out = new StringBuilder("     ");
+        for (String venue : VENUES) ScheduleRenderer.padRight(out, venue, columnWidth(venue));
+        out.append(ScheduleRenderer.NL);
+        for (int t = 1; t <= N_TEAMS; t++) {
+            out.append('T');
+            ScheduleRenderer.padRight(out, t, 2);
+            out.append("  ");
+            for (int v = 0; v < N_VENUES; v++)
+                ScheduleRenderer.padLeft(out, counts[(t - 1) * N_VENUES + v], columnWidth(VENUES[v]));
+            out.append(ScheduleRenderer.NL);
         }
+        System.out.print(out);
+    }
+
+    /** Main 6, BP 4, Gerry 6 as before; longer names get one space. */
+    private static int columnWidth(String venue) {
+        return Math.max(venue.length() + 1, Math.min(6, venue.length() + 2));
+    }
+
+    private static String csvField(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonEscape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * JFR Summary
+ * ===========
+ * Reads a Flight Recorder file and reports where the scheduler's time went,
+ * from the events in SchedulerEvents:
+ *
+ *   java JfrSummary <recording.jfr>
+ *
+ *   - count, total, mean, p50 and p99 of each duration event, split by
+ *     week, court group or solve kind
+ *   - attempt time broken down into completed weeks and the weeks attempts
+ *     died in, and — if the recording had Phase1/Phase2 enabled — into
+ *     Phase 1, Phase 2 and the rest
+ *   - Phase 2 failures and give-ups by week and court group
+ *
+ * Percentiles come from LatencyHistogram, so they are within 6.25%.
+ */
+public class JfrSummary {
+
+    /** Durations of one kind of interval. */
+    private static final class Timings {
+        final LatencyHistogram histogram = new LatencyHistogram(1);
+        long                   count, totalNanos;
+
+        void add(Duration d) {
+            long nanos = d.toNanos();
+            histogram.record(nanos);
+            count++;
+            totalNanos += nanos;
+        }
+    }
+
+    private final Map<String, Timings> timings   = new TreeMap<>();
+    private final Map<String, long[]>  failures  = new TreeMap<>(); // "Wk G" → {failures, give-ups}
+    private long                       solutions;
+    private Instant                    first, last;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java JfrSummary <recording.jfr>");
+            System.err.println("  Summarizes the com.example scheduler events of a Flight Recorder file.");
+            System.exit(1);
+        }
+        Path       file    = Path.of(args[0]);
+        JfrSummary summary = new JfrSummary();
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) summary.accept(recording.readEvent());
+        }
+        summary.print(file);
+    }
+
+    private void accept(RecordedEvent e) {
+        String type = e.getEventType().getName();
+        if (!type.startsWith("com.example.")) return;
+        if (first == null || e.getStartTime().isBefore(first)) first = e.getStartTime();
+        if (last  == null || e.getEndTime().isAfter(last))     last  = e.getEndTime();
+
+        switch (type) {
+            case "com.example.Attempt"       -> {
+                time("Attempt", e);
+                time("Attempt, " + (e.getBoolean("complete") ? "complete" : "died in week " + (e.getInt("weeksCompleted") + 1)), e);
+            }
+            case "com.example.Week"          -> { time("Week", e); time(String.format("Week %2d", e.getInt("week")), e); }
+            case "com.example.Phase1"        -> {
+                time("Phase 1", e);
+                time(String.format("Phase 1, G%d%s", e.getInt("group"), e.getBoolean("cutoff") ? " cutoff" : ""), e);
+            }
+            case "com.example.Phase2"        -> { time("Phase 2", e); time(String.format("Phase 2, G%d", e.getInt("group")), e); }
+            case "com.example.VenueSolve"    -> time(e.getBoolean("repair") ? "Venue repair" : "Venue optimize", e);
+            case "com.example.SolutionWrite" -> time("Solution write", e);
+            case "com.example.SolutionFound" -> solutions++;
+            case "com.example.Phase2Failure" -> {
+                long[] f = failures.computeIfAbsent(String.format("W%-2d G%d", e.getInt("week"), e.getInt("group")),
+                                                    k -> new long[2]);
+                f[0]++;
+                if (e.getBoolean("giveUp")) f[1]++;
+            }
+            default -> { }
+        }
+    }
+
+    private void time(String key, RecordedEvent e) {
+        timings.computeIfAbsent(key, k -> new Timings()).add(e.getDuration());
+    }
+
+    // ── Report ────────────────────────────────────────────────────────────────
+
+    private void print(Path file) {
+        if (first == null) {
+            System.out.println(file + ": no com.example events — was the scheduler running under -XX:StartFlightRecording?");
+            return;
+        }
+        Duration span = Duration.between(first, last);
+        System.out.printf("%s: %s of scheduler events, %,d solutions found%n%n",
+                          file, seconds(span.toNanos()), solutions);
+
+        System.out.printf("%-26s %10s %12s %10s %10s %10s%n", "Interval", "Count", "Total", "Mean", "p50", "p99");
+        for (Map.Entry<String, Timings> entry : timings.entrySet()) {
+            Timings                   t = entry.getValue();
+            LatencyHistogram.Snapshot s = t.histogram.snapshot();
+            System.out.printf("%-26s %,10d %12s %10s %10s %10s%n", entry.getKey(), t.count,
+                              seconds(t.totalNanos),
+                              micros(t.totalNanos / (double) t.count), micros(s.quantile(0.50)), micros(s.quantile(0.99)));
+        }
+
+        Timings attempts = timings.get("Attempt");
+        if (attempts != null && attempts.totalNanos > 0) {
+            double all   = attempts.totalNanos;
+            long   weeks = total("Week");
+            System.out.printf("%nAttempt time%n");
+            System.out.printf("  %-24s %6.1f%%%n", "completed weeks", 100 * weeks / all);
+            System.out.printf("  %-24s %6.1f%%%n", "weeks that died", 100 * (all - weeks) / all);
+            if (timings.containsKey("Phase 1") || timings.containsKey("Phase 2")) {
+                long p1 = total("Phase 1"), p2 = total("Phase 2");
+                System.out.printf("  %-24s %6.1f%%%n", "Phase 1", 100 * p1 / all);
+                System.out.printf("  %-24s %6.1f%%%n", "Phase 2", 100 * p2 / all);
+                System.out.printf("  %-24s %6.1f%%%n", "other", 100 * (all - p1 - p2) / all);
+            } else {
+                System.out.printf("  (enable com.example.Phase1 and com.example.Phase2 for the phase split)%n");
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            System.out.printf("%nPhase 2 failures%n  %-8s %12s %10s%n", "Week/Grp", "Failures", "Give-ups");
+            for (Map.Entry<String, long[]> entry : failures.entrySet())
+                System.out.printf("  %-8s %,12d %,10d%n", entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+    }
+
+    private long total(String key) {
+        Timings t = timings.get(key);
+        return t == null ? 0 : t.totalNanos;
+    }
+
+    private static String seconds(long nanos) {
+        return String.format("%,.3f s", nanos / 1e9);
+    }
+
+    private static String micros(double nanos) {
+        return nanos >= 1e6 ? String.format("%.1f ms", nanos / 1e6) : String.format("%.1f us", nanos / 1e3);
+    }
+}
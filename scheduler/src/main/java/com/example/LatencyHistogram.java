@@ -0,0 +1,175 @@
+package com.example;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Latency Histogram
+ * =================
+ * Durations in nanoseconds, counted in log-linear buckets: exact below 16,
+ * then 16 buckets per power of two, so any value is reported to within
+ * 1/16 (6.25%) of itself.  Every bucket up to Long.MAX_VALUE fits in
+ * BUCKETS counters.
+ *
+ * Each recording thread gets its own Recorder — a counter array nothing
+ * else writes — and readers merge all of them; recording allocates
+ * nothing and takes no lock.  A Recorder times one in sampleEvery of the
+ * intervals it is asked about, so hot loops pay for System.nanoTime() only
+ * on the sampled ones; percentiles are unaffected, counts are of samples.
+ *
+ *   Recorder r = PHASE.recorder();     // once per thread
+ *   long t0 = r.start();               // per interval
+ *   ...
+ *   r.stop(t0);
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB      = 1 << SUB_BITS;
+    static final int         BUCKETS  = (63 - SUB_BITS + 1) * SUB;
+
+    /** start()'s result for an interval that is not being timed. */
+    static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    // Opaque access: the owner's increments become visible to readers
+    // without fences on the recording side
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /** One thread's share of a histogram.  Only that thread may record into it. */
+    static final class Recorder {
+        private final long[] counts = new long[BUCKETS];
+        private final int    sampleMask;
+        private int          tick;
+
+        private Recorder(int sampleMask) { this.sampleMask = sampleMask; }
+
+        /** System.nanoTime() if this interval is sampled, else NOT_SAMPLED. */
+        long start() {
+            return (++tick & sampleMask) == 0 ? System.nanoTime() : NOT_SAMPLED;
+        }
+
+        /** Records the interval begun by start(), if it was sampled. */
+        void stop(long start) {
+            if (start != NOT_SAMPLED) record(System.nanoTime() - start);
+        }
+
+        /** Records one duration, unsampled. */
+        void record(long nanos) {
+            int b = bucket(Math.max(nanos, 0));
+            COUNTS.setOpaque(counts, b, (long) COUNTS.getOpaque(counts, b) + 1);
+        }
+    }
+
+    private final int                   sampleEvery;
+    private final List<Recorder>        recorders = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Recorder> own       = ThreadLocal.withInitial(this::recorder);
+
+    /** sampleEvery is rounded up to a power of two; 1 times every interval. */
+    LatencyHistogram(int sampleEvery) {
+        this.sampleEvery = sampleEvery <= 1 ? 1 : Integer.highestOneBit((sampleEvery - 1) << 1);
+    }
+
+    int sampleEvery() { return sampleEvery; }
+
+    /** A new Recorder for the calling thread to keep. */
+    Recorder recorder() {
+        Recorder r = new Recorder(sampleEvery - 1);
+        recorders.add(r);
+        return r;
+    }
+
+    /** Records one duration into the calling thread's own Recorder, unsampled. */
+    void record(long nanos) {
+        own.get().record(nanos);
+    }
+
+    // ── Buckets ───────────────────────────────────────────────────────────────
+
+    static int bucket(long v) {
+        if (v < SUB) return (int) v;
+        int e = 63 - Long.numberOfLeadingZeros(v);
+        return (e - SUB_BITS + 1) * SUB + (int) ((v >>> (e - SUB_BITS)) & (SUB - 1));
+    }
+
+    /** The smallest value counted in bucket b. */
+    static long lowest(int b) {
+        if (b < SUB) return b;
+        int shift = b / SUB - 1;
+        return (long) (SUB + b % SUB) << shift;
+    }
+
+    /** The middle of bucket b, as reported for values in it. */
+    static double middle(int b) {
+        return b < SUB ? b : lowest(b) + ((1L << (b / SUB - 1)) - 1) / 2.0;
+    }
+
+    // ── Reading ───────────────────────────────────────────────────────────────
+
+    /** All recorders' counts merged, as of now. */
+    Snapshot snapshot() {
+        long[] merged = new long[BUCKETS];
+        for (Recorder r : recorders)
+            for (int b = 0; b < BUCKETS; b++) merged[b] += (long) COUNTS.getOpaque(r.counts, b);
+        return new Snapshot(merged);
+    }
+
+    /** Merged counts, with percentiles read off them. */
+    static final class Snapshot {
+        private final long[] counts;
+        final long           samples;
+
+        private Snapshot(long[] counts) {
+            long n = 0;
+            for (long c : counts) n += c;
+            this.counts  = counts;
+            this.samples = n;
+        }
+
+        /** The value at quantile q (0..1), in nanoseconds; 0 if nothing was recorded. */
+        double quantile(double q) {
+            if (samples == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * samples));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += counts[b];
+                if (seen >= rank) return middle(b);
+            }
+            return max();
+        }
+
+        double max() {
+            for (int b = BUCKETS - 1; b >= 0; b--) if (counts[b] > 0) return middle(b);
+            return 0;
+        }
+
+        double mean() {
+            return samples == 0 ? 0 : sum() / samples;
+        }
+
+        /** All samples added up, each at its bucket's middle. */
+        double sum() {
+            double sum = 0;
+            for (int b = 0; b < BUCKETS; b++) sum += counts[b] * middle(b);
+            return sum;
+        }
+
+        /** Samples whose bucket's middle is at most nanos — a cumulative bucket count. */
+        long countAtMost(double nanos) {
+            long n = 0;
+            for (int b = 0; b < BUCKETS && middle(b) <= nanos; b++) n += counts[b];
+            return n;
+        }
+    }
+
+    /** Samples, mean, p50/p90/p99/p99.9 and max in microseconds, as a JSON object. */
+    String toJson() {
+        Snapshot s = snapshot();
+        return String.format("{\"samples\":%d,\"sampleEvery\":%d,\"meanUs\":%.2f,\"p50Us\":%.2f," +
+                             "\"p90Us\":%.2f,\"p99Us\":%.2f,\"p999Us\":%.2f,\"maxUs\":%.2f}",
+                             s.samples, sampleEvery, s.mean() / 1e3, s.quantile(0.50) / 1e3,
+                             s.quantile(0.90) / 1e3, s.quantile(0.99) / 1e3, s.quantile(0.999) / 1e3,
+                             s.max() / 1e3);
+    }
+}
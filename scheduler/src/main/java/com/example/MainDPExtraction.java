@@ -1,14 +1,12 @@
 package com.example;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.nio.file.Path;
 
 public class MainDPExtraction {
 
@@ -61,6 +59,13 @@ public class MainDPExtraction {
 
         long searchStart = programStartMs;
 
+        // Where attempts die, for the whole run — written on Ctrl+C
+        SearchTelemetry          telemetry = new SearchTelemetry("MainDPExtraction");
+        SearchTelemetry.Recorder tree      = telemetry.recorder();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try { telemetry.save(Path.of(SearchTelemetry.FILE)); } catch (IOException e) { e.printStackTrace(); }
+        }));
+
         MatchMatrix matches;
         MatchMatrix temp_matches;
 
@@ -75,6 +80,7 @@ public class MainDPExtraction {
             matches = new MatchMatrix();
             int match_pairings_attempts_counter = 1;
             java.util.Arrays.fill(weekRetriesTemp, 0);
+            int weeksCompleted = 0;
 
             outerloop:
             for (int weeks_counter = 0, match_count = 1;
@@ -97,6 +103,7 @@ public class MainDPExtraction {
 
                     // ── Phase 1: randomly fill this group's match slots ───────
                     startTime = System.nanoTime();
+                    int placedBefore = elements_counter;
 
                     while (elements_counter < elements_total) {
 
@@ -104,6 +111,8 @@ public class MainDPExtraction {
                             loop1Time += (System.nanoTime() - startTime);
                             break_counter_1++;
                             maxWeekReached = Math.max(maxWeekReached, weeks_counter + 1);
+                            tree.phase1(weeks_counter, court_counter, match_attempts_counter - 1,
+                                        elements_counter - placedBefore, true);
                             break outerloop;
                         }
 
@@ -130,6 +139,8 @@ public class MainDPExtraction {
                     } // Phase 1 while
 
                     loop1Time += (System.nanoTime() - startTime);
+                    tree.phase1(weeks_counter, court_counter, match_attempts_counter - 1,
+                                elements_counter - placedBefore, false);
 
                     // ── Phase 2: bitmask DP perfect matching + extraction ─────
                     startTime = System.nanoTime();
@@ -202,6 +213,9 @@ public class MainDPExtraction {
                         }
                     }
 
+                    boolean giveUp = !matches_found && match_pairings_attempts_counter++ % 1_000 == 0;
+                    tree.phase2(weeks_counter, court_counter, matches_found, giveUp);
+
                     if (!matches_found) {
 
                         groupFailCounts[court_counter]++;
@@ -213,7 +227,7 @@ public class MainDPExtraction {
                         court_counter    = -1;
                         temp_matches     = matches.copy();
 
-                        if (match_pairings_attempts_counter++ % 1_000 == 0) {
+                        if (giveUp) {
                             break_counter_2++;
                             loop2Time += (System.nanoTime() - startTime);
                             maxWeekReached = Math.max(maxWeekReached, weeks_counter + 1);
@@ -235,6 +249,7 @@ public class MainDPExtraction {
                 } // court loop
 
                 matches = temp_matches.copy();
+                weeksCompleted++;
 
                 // ── Week WEEKS-1 milestone ────────────────────────────────────
                 if (weeks_counter + 1 == WEEKS - 1) {
@@ -272,15 +287,8 @@ public class MainDPExtraction {
                         .format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS"));
                     String filename = "matches_" + timestamp + ".txt";
 
-                    try (PrintStream fileOut =
-                            new PrintStream(new FileOutputStream(filename))) {
-                        PrintStream originalOut = System.out;
-                        System.setOut(fileOut);
-                        matches.printMatrix();
-                        matches.printMatches();
-                        printCourtCounts(matches);
-                        System.out.flush();
-                        System.setOut(originalOut);
+                    try {
+                        ScheduleRenderer.write(matches, filename);
                     } catch (IOException e) {
                         e.printStackTrace();
                     }
@@ -316,6 +324,8 @@ public class MainDPExtraction {
 
             } // weeks loop
 
+            tree.attemptEnded(weeksCompleted);
+
         } // while not interrupted
 
         // ── Final summary on Ctrl+C ───────────────────────────────────────────
@@ -431,63 +441,6 @@ public class MainDPExtraction {
         return String.format("%02d:%02d:%02d", s / 3600, (s % 3600) / 60, s % 60);
     }
 
-    // ── Court count summary ───────────────────────────────────────────────────
-
-    public static void printCourtCounts(MatchMatrix matches) {
-
-        int[][] groups  = Config.getScheduleGroups();
-        int mainCourts  = Config.getMainCourts();
-        int bpCourts    = Config.getBpCourts();
-        int gerryCourts = Config.getGerryCourts();
-
-        int mainStart  = 0;
-        int mainEnd    = mainCourts - 1;
-        int bpStart    = mainCourts;
-        int bpEnd      = mainCourts + bpCourts - 1;
-        int gerryStart = mainCourts + bpCourts;
-        int gerryEnd   = mainCourts + bpCourts + gerryCourts - 1;
-
-        int totalListSize = MatchMatrix.TOTAL_MATCHES + 1;
-        List<Integer> matchIndexes = new ArrayList<>();
-        for (int k = 1; k < totalListSize; k++) {
-            for (int i = 1; i < totalListSize; i++) {
-                if (matches.getMatchValueByIndex(i) == k) {
-                    matchIndexes.add(i);
-                }
-            }
-        }
-
-        int[] main  = new int[MATCHES_PER_WEEK + 1];
-        int[] bp    = new int[MATCHES_PER_WEEK + 1];
-        int[] gerry = new int[MATCHES_PER_WEEK + 1];
-
-        int weekCount = (matchIndexes.size() + MATCHES_PER_WEEK - 1) / MATCHES_PER_WEEK;
-
-        for (int week = 0; week < weekCount; week++) {
-            int base = week * MATCHES_PER_WEEK;
-            for (int[] group : groups) {
-                for (int j = 0; j < group.length; j++) {
-                    int idx = base + group[j];
-                    if (idx >= matchIndexes.size()) continue;
-
-                    int matchNum = matchIndexes.get(idx);
-                    int t1 = matches.getRow(matchNum) + 1;
-                    int t2 = matches.getCol(matchNum) + 1;
-
-                    if      (j >= mainStart  && j <= mainEnd)  { main[t1]++;  main[t2]++;  }
-                    else if (j >= bpStart    && j <= bpEnd)    { bp[t1]++;    bp[t2]++;    }
-                    else if (j >= gerryStart && j <= gerryEnd) { gerry[t1]++; gerry[t2]++; }
-                }
-            }
-        }
-
-        System.out.println();
-        System.out.printf("     %-6s%-4s%-6s%n", "Main", "BP", "Gerry");
-        for (int t = 1; t <= MATCHES_PER_WEEK; t++) {
-            System.out.printf("T%-2d  %6d%4d%6d%n", t, main[t], bp[t], gerry[t]);
-        }
-    }
-
     // ── Overlap table ─────────────────────────────────────────────────────────
 
     public static boolean hasOverlap(int r1, int c1, int r2, int c2) {
@@ -3,24 +3,30 @@ package com.example;
 import com.sun.net.httpserver.HttpServer;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintStream;
-import java.net.HttpURLConnection;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 public class MainMultiThreaded {
 
@@ -37,24 +43,119 @@ public class MainMultiThreaded {
     private static final AtomicInteger solutionCount    = new AtomicInteger(0);
     private static final AtomicInteger savedCount       = new AtomicInteger(0);
     private static final AtomicLong    lastSolutionMs   = new AtomicLong(System.currentTimeMillis());
-    private static final AtomicLong    totalAttempts    = new AtomicLong(0);
-    private static final AtomicInteger peakWeek         = new AtomicInteger(0);
-
-    // Per-thread current week — initialised in main() once nThreads is known.
-    private static volatile AtomicIntegerArray threadCurrentWeek;
-
-    // Serialises all console output and System.setOut redirects.
+    private static final AtomicLong    venueChecked     = new AtomicLong(0); // schedules through the early-reject filter
+    private static final AtomicLong    venueRejected    = new AtomicLong(0); // ... rejected without the exact optimizer
+    private static final AtomicLong    repairTried      = new AtomicLong(0); // near misses handed to VenueRepair
+    private static final AtomicLong    repairPromoted   = new AtomicLong(0); // ... repaired and saved
+
+    // Tabu repair of near misses (see VenueRepair), off unless -Drepair=true:
+    // it pays on short seasons but practically never succeeds on full ones.
+    // Schedules with more teams than REPAIR_MAX_OUT_OF_REACH out of venue
+    // reach are not worth a repair.
+    private static final boolean REPAIR                  = Boolean.getBoolean("repair");
+    private static final int     REPAIR_MAX_OUT_OF_REACH = 2;
+
+    // Phase timings, recorded per thread and merged for /metrics (see
+    // LatencyHistogram).  Phases 1 and 2 run many times per week and are
+    // timed one in -DlatencySample (default 64); weeks, attempts and venue
+    // solves are rarer and timed every time.
+    private static final int              LATENCY_SAMPLE = Integer.getInteger("latencySample", 64);
+    private static final LatencyHistogram phase1Latency  = new LatencyHistogram(LATENCY_SAMPLE);
+    private static final LatencyHistogram phase2Latency  = new LatencyHistogram(LATENCY_SAMPLE);
+    private static final LatencyHistogram weekLatency    = new LatencyHistogram(1); // one week, retries included
+    private static final LatencyHistogram attemptLatency = new LatencyHistogram(1); // one pass of the search loop
+    private static final LatencyHistogram venueLatency   = new LatencyHistogram(1); // VenueOptimizer.optimize()
+
+    // Where attempts die, by week and court group — served on /telemetry and
+    // written to SearchTelemetry.FILE on shutdown.
+    private static final SearchTelemetry telemetry = new SearchTelemetry("MainMultiThreaded");
+
+    // Attempts and weeks reached, per worker on its own cache line (see
+    // WorkerCounters) — initialised in main() once nThreads is known.
+    private static volatile WorkerCounters workerCounters;
+
+    // CPU time and allocation of each worker, from ThreadMXBean — the rates
+    // per CPU-second that stay fair when a shared host deschedules workers.
+    private static volatile WorkerCpu workerCpu;
+
+    // Venue scoring runs here, off the search threads; optimize() also splits
+    // each solve across it.  Initialised in main() once nThreads is known.
+    private static volatile ForkJoinPool scoringPool;
+
+    // Finished schedules: search → score → write, see SolutionPipeline.
+    // Initialised in main() before any worker starts.
+    private static volatile SolutionPipeline pipeline;
+
+    // Saved schedules go to a binary SolutionLog (-DsolutionLog=<dir>, default
+    // "solutions"); -DtextFiles=true also writes the matches_/venue_schedule_
+    // text files, which SolutionLogExport can otherwise render on demand.
+    // Only the pipeline's writer thread appends.  Null if the log could not
+    // be opened, in which case text files are written instead.
+    private static final boolean        TEXT_FILES = Boolean.getBoolean("textFiles");
+    private static volatile SolutionLog solutionLog;
+
+    // Schedules equal up to week order, row order and equal court groups
+    // (CanonicalForm) are scored and saved once, in this run and — through
+    // a Bloom filter saved in the log directory — across runs.  Off with
+    // -Ddedup=false; null then, or if the filter could not be read.
+    private static final boolean          DEDUP = Boolean.parseBoolean(System.getProperty("dedup", "true"));
+    private static volatile SolutionDedup dedup;
+
+    // Only schedules entering the best -DtopK (default 100) are saved; the
+    // one they push out loses its text files.  The leaderboard is served on
+    // /leaderboard and written to the log directory every -DtopSnapshotSecs.
+    // -DtopK=0 saves every qualifying schedule, as does an unsupported
+    // venue layout; null then.
+    private static final int             TOP_K             = Integer.getInteger("topK", 100);
+    private static final int             TOP_SNAPSHOT_SECS = Integer.getInteger("topSnapshotSecs", 30);
+    private static volatile TopSolutions top;
+
+    static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS");
+
+    // Serialises all console output.
     private static final Object outputLock = new Object();
 
     // Metrics pushed from remote instances, keyed by instanceId.
     private static final ConcurrentHashMap<String, PushedInstance> pushedMetrics = new ConcurrentHashMap<>();
 
     private static class PushedInstance {
-        final String json;
-        final long   receivedAt;
-        PushedInstance(String json, long receivedAt) { this.json = json; this.receivedAt = receivedAt; }
+        final String                 json;
+        final long                   receivedAt;
+        final MetricsPusher.Received state; // null for a pusher that sends whole JSON objects
+        PushedInstance(String json, long receivedAt, MetricsPusher.Received state) {
+            this.json = json; this.receivedAt = receivedAt; this.state = state;
+        }
     }
 
+    // This instance's metrics pushed to -Daggregator every PUSH_MS, buffering
+    // up to -DpushBuffer periods while it is unreachable.  Null if not set.
+    private static final long PUSH_MS     = 2_000;
+    private static final int  PUSH_BUFFER = Integer.getInteger("pushBuffer", 900);
+    private static volatile MetricsPusher pusher;
+
+    // Resolved once: the local host lookup can take seconds on a bad resolver
+    private static final String INSTANCE_ID = resolveInstanceId();
+
+    // /prometheus page, rebuilt every -DprometheusMs off the request path.
+    // Initialised in startMetricsServer().
+    private static final long PROMETHEUS_MS = Long.getLong("prometheusMs", 1000);
+    private static volatile PrometheusExporter prometheus;
+
+    // /stream server-sent events, a tick every -DstreamMs to at most
+    // -DstreamMaxClients dashboards.  Initialised in startMetricsServer().
+    private static final long STREAM_MS          = Long.getLong("streamMs", 1000);
+    private static final int  STREAM_MAX_CLIENTS = Integer.getInteger("streamMaxClients", 64);
+    private static volatile MetricsStream stream;
+
+    // Trends of this instance's and the pushed instances' metrics, served on
+    // /history.  Saved to -DhistoryFile every -DhistorySaveSecs and on
+    // shutdown, if set; instances silent for -DhistoryEvictMins are dropped
+    // from it and from pushedMetrics.  Initialised in main().
+    private static final String HISTORY_FILE       = System.getProperty("historyFile");
+    private static final int    HISTORY_SAVE_SECS  = Integer.getInteger("historySaveSecs", 60);
+    private static final int    HISTORY_EVICT_MINS = Integer.getInteger("historyEvictMins", 60);
+    private static volatile MetricsHistory history;
+
     static {
         preComputeTable();
     }
@@ -73,27 +174,80 @@ public class MainMultiThreaded {
         }
 
         int nThreads      = Runtime.getRuntime().availableProcessors() - 1;
-        threadCurrentWeek = new AtomicIntegerArray(nThreads);
+        workerCounters    = new WorkerCounters(nThreads);
+        workerCpu         = new WorkerCpu(nThreads);
+
+        String logDir = System.getProperty("solutionLog", "solutions");
+        try {
+            solutionLog = new SolutionLog(Path.of(logDir));
+        } catch (IOException e) {
+            System.err.println("Could not open solution log " + logDir + ": " + e.getMessage()
+                               + " — writing text files instead");
+        }
+        if (DEDUP) {
+            Path bloomFile = Path.of(logDir, "dedup.bloom");
+            try {
+                dedup = new SolutionDedup(bloomFile);
+            } catch (IOException e) {
+                System.err.println("Could not read " + bloomFile + ": " + e.getMessage() + " — not deduplicating");
+            }
+        }
+
+        if (TOP_K > 0 && VenueOptimizer.isSupported()) {
+            top = new TopSolutions(TOP_K);
+            startTopSnapshots(Path.of(logDir, TopSolutions.SNAPSHOT_FILE));
+        }
+
+        scoringPool = new ForkJoinPool(Math.max(2, nThreads / 4));
+        pipeline    = new SolutionPipeline(Math.max(1, nThreads / 4),
+                                           MainMultiThreaded::scoreSolution,
+                                           MainMultiThreaded::writeSolutions);
+
+        history = new MetricsHistory(HISTORY_FILE == null ? null : Path.of(HISTORY_FILE),
+                                     HISTORY_EVICT_MINS * 60_000L);
 
         // Start the live progress display before launching workers.
         startStatusDisplay(nThreads);
         startMetricsServer(nThreads);
+        startHistorySampler(nThreads);
 
         String aggregatorUrl = System.getProperty("aggregator");
-        if (aggregatorUrl != null) startMetricsPush(aggregatorUrl, nThreads);
+        if (aggregatorUrl != null) {
+            pusher = new MetricsPusher(URI.create(aggregatorUrl), INSTANCE_ID, () -> buildMetricsJson(nThreads),
+                                       PUSH_MS, PUSH_BUFFER);
+            pusher.start();
+        }
 
         ExecutorService pool = Executors.newFixedThreadPool(nThreads);
 
         // Shutdown hook — fires on Ctrl+C.
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             pool.shutdownNow();
+            pipeline.close(5_000);
+            scoringPool.shutdownNow();
+            if (solutionLog != null) {
+                synchronized (solutionLog) {
+                    try { solutionLog.close(); } catch (IOException e) { e.printStackTrace(); }
+                }
+            }
+            if (dedup != null) {
+                try { dedup.save(); } catch (IOException e) { e.printStackTrace(); }
+            }
+            try { telemetry.save(Path.of(SearchTelemetry.FILE)); } catch (IOException e) { e.printStackTrace(); }
+            try { history.save(); } catch (IOException e) { e.printStackTrace(); }
+            if (top != null) {
+                try { top.writeSnapshot(Path.of(logDir, TopSolutions.SNAPSHOT_FILE)); }
+                catch (IOException e) { e.printStackTrace(); }
+            }
             synchronized (outputLock) {
                 System.out.println();
                 System.out.println("Shutting down.");
                 System.out.printf("  Total solutions : %,d%n", solutionCount.get());
-                System.out.printf("  Total attempts  : %,d%n", totalAttempts.get());
+                System.out.printf("  Total attempts  : %,d%n", workerCounters.sum(WorkerCounters.ATTEMPTS));
                 System.out.printf("  Total runtime   : %s%n",
                     formatMs(System.currentTimeMillis() - PROGRAM_START_MS));
+                if (WorkerCpu.cpuSupported())
+                    System.out.printf("  Worker CPU time : %s%n", formatMs(workerCpu.totalCpuNanos() / 1_000_000));
             }
         }));
 
@@ -102,6 +256,8 @@ public class MainMultiThreaded {
 
             pool.submit(() -> {
 
+                workerCpu.register(threadId);
+
                 // ── Per-thread scratch arrays ─────────────────────────────────
                 // Every thread has its own copies — zero shared mutable state.
 
@@ -121,17 +277,28 @@ public class MainMultiThreaded {
                 int[]     groupAdj   = new int[MATCHES_PER_WEEK];
                 boolean[] dpTable    = new boolean[1 << MATCHES_PER_WEEK];
 
+                // Phase timing
+                LatencyHistogram.Recorder phase1Timer  = phase1Latency.recorder();
+                LatencyHistogram.Recorder phase2Timer  = phase2Latency.recorder();
+                LatencyHistogram.Recorder weekTimer    = weekLatency.recorder();
+                LatencyHistogram.Recorder attemptTimer = attemptLatency.recorder();
+                SearchTelemetry.Recorder  tree         = telemetry.recorder();
+
                 MatchMatrix matches;
                 MatchMatrix temp_matches;
 
                 // ── Search loop — runs until Ctrl+C ───────────────────────────
                 while (!Thread.currentThread().isInterrupted()) {
 
+                    long attemptStart = attemptTimer.start();
+                    SchedulerEvents.Attempt attemptEvent = new SchedulerEvents.Attempt();
+                    attemptEvent.begin();
                     matches = new MatchMatrix();
-                    totalAttempts.incrementAndGet();
+                    workerCounters.add(threadId, WorkerCounters.ATTEMPTS, 1);
                     int match_pairings_attempts_counter = 1;
 
-                    int weeksReached = 0;
+                    int weeksReached   = 0;
+                    int weeksCompleted = 0;
 
                     outerloop:
                     for (int weeks_counter = 0, match_count = 1;
@@ -139,6 +306,10 @@ public class MainMultiThreaded {
                          weeks_counter++) {
 
                         weeksReached = weeks_counter;
+                        long weekStart = weekTimer.start();
+                        SchedulerEvents.Week weekEvent = new SchedulerEvents.Week();
+                        weekEvent.begin();
+                        int restartsBefore = match_pairings_attempts_counter;
 
                         int[] elements_array   = new int[MATCHES_PER_WEEK];
                         int   elements_counter = 0;
@@ -157,9 +328,17 @@ public class MainMultiThreaded {
                             int match_attempts_counter = 1;
 
                             // ── Phase 1: randomly fill this group's match slots ──
+                            long phase1Start  = phase1Timer.start();
+                            int  placedBefore = elements_counter;
+                            SchedulerEvents.Phase1 phase1Event = new SchedulerEvents.Phase1();
+                            phase1Event.begin();
                             while (elements_counter < elements_total) {
 
                                 if (match_attempts_counter++ % 50_000 == 0) {
+                                    phase1Timer.stop(phase1Start);
+                                    tree.phase1(weeks_counter, court_counter, match_attempts_counter - 1,
+                                                elements_counter - placedBefore, true);
+                                    commit(phase1Event, weeks_counter, court_counter, match_attempts_counter - 1, true);
                                     break outerloop;
                                 }
 
@@ -184,6 +363,10 @@ public class MainMultiThreaded {
                                     elements_counter++;
                                 }
                             } // Phase 1 while
+                            phase1Timer.stop(phase1Start);
+                            tree.phase1(weeks_counter, court_counter, match_attempts_counter - 1,
+                                        elements_counter - placedBefore, false);
+                            commit(phase1Event, weeks_counter, court_counter, match_attempts_counter - 1, false);
 
                             // ── Phase 2: bitmask DP perfect matching + extraction ──
                             //
@@ -192,6 +375,9 @@ public class MainMultiThreaded {
                             // No random search — deterministic, O(2^N × N) per call.
 
                             // Collect Phase 1 teams for this group
+                            long phase2Start = phase2Timer.start();
+                            SchedulerEvents.Phase2 phase2Event = new SchedulerEvents.Phase2();
+                            phase2Event.begin();
                             int sliceStart = elements_counter - courtMatches;
                             int ngt = 0;
                             for (int x = 0; x < courtMatches; x++) {
@@ -262,16 +448,35 @@ public class MainMultiThreaded {
                                     elements_total += courtMatches;
                                 }
                             }
+                            phase2Timer.stop(phase2Start);
+
+                            boolean giveUp = !matches_found && match_pairings_attempts_counter++ % 1_000 == 0;
+                            tree.phase2(weeks_counter, court_counter, matches_found, giveUp);
+                            phase2Event.end();
+                            if (phase2Event.shouldCommit()) {
+                                phase2Event.week  = weeks_counter + 1;
+                                phase2Event.group = court_counter;
+                                phase2Event.found = matches_found;
+                                phase2Event.commit();
+                            }
 
                             if (!matches_found) {
 
+                                SchedulerEvents.Phase2Failure failure = new SchedulerEvents.Phase2Failure();
+                                if (failure.shouldCommit()) {
+                                    failure.week   = weeks_counter + 1;
+                                    failure.group  = court_counter;
+                                    failure.giveUp = giveUp;
+                                    failure.commit();
+                                }
+
                                 match_count      = (match_count / MATCHES_PER_WEEK) * MATCHES_PER_WEEK + 1;
                                 elements_total   = 0;
                                 elements_counter = 0;
                                 court_counter    = -1;
                                 temp_matches     = matches.copy();
 
-                                if (match_pairings_attempts_counter++ % 1_000 == 0) {
+                                if (giveUp) {
                                     break outerloop;
                                 }
                             }
@@ -279,19 +484,46 @@ public class MainMultiThreaded {
                         } // court loop
 
                         matches = temp_matches.copy();
+                        weekTimer.stop(weekStart);
+                        weeksCompleted++;
+                        weekEvent.end();
+                        if (weekEvent.shouldCommit()) {
+                            weekEvent.week     = weeks_counter + 1;
+                            weekEvent.restarts = match_pairings_attempts_counter - restartsBefore;
+                            weekEvent.commit();
+                        }
 
-                        // ── Full solution found — write file and keep searching ──
+                        // ── Full solution found — hand off for scoring, keep searching ──
                         if (weeks_counter + 1 == WEEKS) {
-                            int solNum = solutionCount.incrementAndGet();
-                            writeSolution(matches, threadId, solNum);
+                            SchedulerEvents.SolutionFound found = new SchedulerEvents.SolutionFound();
+                            int solutionNum = solutionCount.incrementAndGet();
+                            if (found.shouldCommit()) {
+                                found.threadId    = threadId;
+                                found.solutionNum = solutionNum;
+                                found.commit();
+                            }
+                            try {
+                                pipeline.submit(matches, threadId, solutionNum);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
                         }
 
                     } // weeks loop
 
+                    attemptTimer.stop(attemptStart);
+                    tree.attemptEnded(weeksCompleted);
+                    attemptEvent.end();
+                    if (attemptEvent.shouldCommit()) {
+                        attemptEvent.threadId       = threadId;
+                        attemptEvent.weeksCompleted = weeksCompleted;
+                        attemptEvent.complete       = weeksCompleted == WEEKS;
+                        attemptEvent.commit();
+                    }
+
                     // Update display metrics once per attempt
-                    threadCurrentWeek.set(threadId, weeksReached);
-                    int pw = peakWeek.get();
-                    if (weeksReached > pw) peakWeek.compareAndSet(pw, weeksReached);
+                    workerCounters.set(threadId, WorkerCounters.CURRENT_WEEK, weeksReached);
+                    workerCounters.max(threadId, WorkerCounters.PEAK_WEEK, weeksReached);
 
                 } // while not interrupted
 
@@ -305,7 +537,7 @@ public class MainMultiThreaded {
 
     private static void startStatusDisplay(int nThreads) {
 
-        final int STATUS_LINES = 5;
+        final int STATUS_LINES = 10;
 
         Thread statusThread = new Thread(() -> {
             boolean firstDraw = true;
@@ -321,18 +553,18 @@ public class MainMultiThreaded {
                 long   elapsed      = now - PROGRAM_START_MS;
                 long   sinceLastSol = now - lastSolutionMs.get();
                 int    sols         = savedCount.get();
-                long   attempts     = totalAttempts.get();
+                long   attempts     = workerCounters.sum(WorkerCounters.ATTEMPTS);
                 double elapsedMin   = elapsed / 60_000.0;
                 double elapsedHr    = elapsed / 3_600_000.0;
                 double solRate      = elapsedHr  > 0.001 ? sols     / elapsedHr  : 0.0;
                 double attRate      = elapsedMin > 0.001 ? attempts / elapsedMin : 0.0;
-                int    peak         = peakWeek.get() + 1;
+                int    peak         = (int) workerCounters.max(WorkerCounters.PEAK_WEEK) + 1;
 
                 StringBuilder wkStr = new StringBuilder();
                 for (int i = 0; i < nThreads; i++) {
                     if (i > 0) wkStr.append(' ');
                     wkStr.append('T').append(i).append('=')
-                         .append(threadCurrentWeek.get(i) + 1);
+                         .append(workerCounters.get(i, WorkerCounters.CURRENT_WEEK) + 1);
                 }
 
                 String c1r1 = lbl("Running",   formatMs(elapsed));
@@ -347,9 +579,46 @@ public class MainMultiThreaded {
                 String c3r2 = lbl("Last sol",  formatMs(sinceLastSol) + " ago");
                 String c3r3 = lbl("Wks",       wkStr.toString());
 
-                int w1 = Math.max(c1r1.length(), Math.max(c1r2.length(), c1r3.length()));
-                int w2 = Math.max(c2r1.length(), Math.max(c2r2.length(), c2r3.length()));
-                int w3 = Math.max(c3r1.length(), Math.max(c3r2.length(), c3r3.length()));
+                long   checked  = venueChecked.get();
+                long   rejected = venueRejected.get();
+                double rejPct   = checked > 0 ? 100.0 * rejected / checked : 0.0;
+                String c1r4 = lbl("Venue rej", String.format("%,d/%,d (%.1f%%)", rejected, checked, rejPct));
+                String c2r4 = lbl("Exact opt", String.format("%,d", checked - rejected));
+                String c3r4 = lbl("Repaired",  String.format("%,d/%,d", repairPromoted.get(), repairTried.get()));
+
+                String c1r5 = lbl("Score q",   pipeline.scoreDepth() + "/" + SolutionPipeline.SCORE_CAPACITY);
+                String c2r5 = lbl("Write q",   pipeline.writeDepth() + "/" + SolutionPipeline.WRITE_CAPACITY);
+                String c3r5 = lbl("Stalls",    String.format("%,d (%s)", pipeline.stalls(), formatMs(pipeline.stallMs())));
+
+                SolutionDedup d = dedup;
+                String c1r6 = lbl("Dupes run", d == null ? "off" : String.format("%,d", d.duplicatesThisRun()));
+                String c2r6 = lbl("Dupes old", d == null ? "off" : String.format("%,d", d.duplicatesEarlier()));
+                String c3r6 = lbl("Dedup",     d == null ? "off" : "on");
+
+                TopSolutions       t     = top;
+                TopSolutions.Entry worst = t == null ? null : t.worst();
+                String c1r7 = lbl("Top K",     t == null ? "off" : t.size() + "/" + t.capacity());
+                String c2r7 = lbl("Evicted",   t == null ? "off" : String.format("%,d", t.evicted()));
+                String c3r7 = lbl("K-th best", worst == null ? "-"
+                                  : String.format("%d/%d %.3f", worst.teamsInRange, MATCHES_PER_WEEK, worst.score));
+
+                // Rates per worker CPU-second, and the share of the workers'
+                // wall-clock time they actually got a CPU for
+                long   cpuNs  = workerCpu.totalCpuNanos();
+                double cpuSec = cpuNs / 1e9;
+                double cpuUse = elapsed > 0 ? 100.0 * cpuNs / (elapsed * 1e6 * nThreads) : 0.0;
+                long   alloc  = workerCpu.totalAllocatedBytes();
+                String c1r8 = lbl("Att/CPU s",  !WorkerCpu.cpuSupported() ? "n/a"
+                                  : String.format("%,.0f", cpuSec > 0.001 ? attempts / cpuSec : 0.0));
+                String c2r8 = lbl("Sol/CPU hr", !WorkerCpu.cpuSupported() ? "n/a"
+                                  : String.format("%.2f", cpuSec > 3.6 ? sols / (cpuSec / 3600) : 0.0));
+                String c3r8 = lbl("CPU",        (!WorkerCpu.cpuSupported() ? "n/a" : String.format("%.0f%%", cpuUse))
+                                  + (!WorkerCpu.allocationSupported() ? ""
+                                     : "  " + formatBytes(attempts > 0 ? alloc / attempts : 0) + "/att"));
+
+                int w1 = widest(c1r1, c1r2, c1r3, c1r4, c1r5, c1r6, c1r7, c1r8);
+                int w2 = widest(c2r1, c2r2, c2r3, c2r4, c2r5, c2r6, c2r7, c2r8);
+                int w3 = widest(c3r1, c3r2, c3r3, c3r4, c3r5, c3r6, c3r7, c3r8);
 
                 String rowFmt = "| %-" + w1 + "s  |  %-" + w2 + "s  |  %-" + w3 + "s |";
                 String sep    = "+" + "-".repeat(w1 + w2 + w3 + 12) + "+";
@@ -365,6 +634,11 @@ public class MainMultiThreaded {
                     System.out.printf(rowFmt + "%n", c1r1, c2r1, c3r1);
                     System.out.printf(rowFmt + "%n", c1r2, c2r2, c3r2);
                     System.out.printf(rowFmt + "%n", c1r3, c2r3, c3r3);
+                    System.out.printf(rowFmt + "%n", c1r4, c2r4, c3r4);
+                    System.out.printf(rowFmt + "%n", c1r5, c2r5, c3r5);
+                    System.out.printf(rowFmt + "%n", c1r6, c2r6, c3r6);
+                    System.out.printf(rowFmt + "%n", c1r7, c2r7, c3r7);
+                    System.out.printf(rowFmt + "%n", c1r8, c2r8, c3r8);
                     System.out.println(sep);
                     System.out.flush();
                 }
@@ -379,34 +653,75 @@ public class MainMultiThreaded {
         long   elapsed      = now - PROGRAM_START_MS;
         long   sinceLastSol = now - lastSolutionMs.get();
         int    sols         = savedCount.get();
-        long   attempts     = totalAttempts.get();
+        long   attempts     = workerCounters.sum(WorkerCounters.ATTEMPTS);
         double elapsedMin   = elapsed / 60_000.0;
         double elapsedHr    = elapsed / 3_600_000.0;
         double solRate      = elapsedHr  > 0.001 ? sols     / elapsedHr  : 0.0;
         double attRate      = elapsedMin > 0.001 ? attempts / elapsedMin : 0.0;
-        int    peak         = peakWeek.get() + 1;
+        int    peak         = (int) workerCounters.max(WorkerCounters.PEAK_WEEK) + 1;
 
         StringBuilder tw = new StringBuilder("[");
         for (int i = 0; i < nThreads; i++) {
             if (i > 0) tw.append(',');
-            tw.append(threadCurrentWeek.get(i) + 1);
+            tw.append(workerCounters.get(i, WorkerCounters.CURRENT_WEEK) + 1);
         }
         tw.append("]");
 
-        String hostname;
-        try { hostname = InetAddress.getLocalHost().getHostName(); }
-        catch (Exception e) { hostname = "unknown"; }
+        // Worker CPU time and allocation; the derived rates are null where
+        // the JVM cannot measure them
+        StringBuilder cpuMs   = new StringBuilder("[");
+        StringBuilder allocMb = new StringBuilder("[");
+        for (int i = 0; i < nThreads; i++) {
+            if (i > 0) { cpuMs.append(','); allocMb.append(','); }
+            cpuMs.append(workerCpu.cpuNanos(i) / 1_000_000);
+            allocMb.append(String.format("%.1f", workerCpu.allocatedBytes(i) / 1e6));
+        }
+        cpuMs.append("]");
+        allocMb.append("]");
+        long    cpuNs    = workerCpu.totalCpuNanos();
+        double  cpuSec   = cpuNs / 1e9;
+        long    alloc    = workerCpu.totalAllocatedBytes();
+        boolean hasCpu   = WorkerCpu.cpuSupported();
+        boolean hasAlloc = WorkerCpu.allocationSupported();
+        String  cpuJson  = String.format(
+            "\"workerCpuMs\":%s,\"workerAllocMB\":%s,\"cpuMs\":%d,\"cpuUtilization\":%s," +
+            "\"attPerCpuSec\":%s,\"solPerCpuHr\":%s,\"allocBytes\":%d,\"bytesPerAttempt\":%s,",
+            cpuMs, allocMb, cpuNs / 1_000_000,
+            hasCpu   ? String.format("%.4f", elapsed > 0 ? cpuNs / (elapsed * 1e6 * nThreads) : 0.0) : "null",
+            hasCpu   ? String.format("%.1f", cpuSec > 0.001 ? attempts / cpuSec : 0.0) : "null",
+            hasCpu   ? String.format("%.2f", cpuSec > 3.6 ? sols / (cpuSec / 3600) : 0.0) : "null",
+            alloc,
+            hasAlloc ? String.valueOf(attempts > 0 ? alloc / attempts : 0) : "null");
+
+        SolutionDedup d = dedup;
+        TopSolutions  t = top;
+        MetricsPusher p = pusher;
 
         return String.format(
-            "{\"instanceId\":\"%s\",\"elapsedMs\":%d,\"solutions\":%d,\"attempts\":%d," +
+            "{\"instanceId\":\"%s\",\"elapsedMs\":%d,\"solutions\":%d,\"solutionsFound\":%d,\"attempts\":%d," +
             "\"attPerMin\":%.1f,\"solPerHr\":%.2f,\"peakWeek\":%d," +
             "\"totalWeeks\":%d,\"sinceLastSolMs\":%d,\"nThreads\":%d," +
-            "\"threadWeeks\":%s}",
-            hostname, elapsed, sols, attempts, attRate, solRate, peak,
-            WEEKS, sinceLastSol, nThreads, tw.toString()
+            "\"threadWeeks\":%s,\"venueChecked\":%d,\"venueRejected\":%d," +
+            "\"repairTried\":%d,\"repairPromoted\":%d," +
+            "\"scoreQueue\":%d,\"writeQueue\":%d,\"pipelineStalls\":%d,\"pipelineStallMs\":%d," +
+            "\"duplicatesThisRun\":%d,\"duplicatesEarlier\":%d,\"topSize\":%d,\"topEvicted\":%d,%s\"push\":%s," +
+            "\"latency\":{\"phase1\":%s,\"phase2\":%s,\"week\":%s,\"attempt\":%s,\"venueOptimize\":%s}}",
+            INSTANCE_ID, elapsed, sols, solutionCount.get(), attempts, attRate, solRate, peak,
+            WEEKS, sinceLastSol, nThreads, tw.toString(),
+            venueChecked.get(), venueRejected.get(), repairTried.get(), repairPromoted.get(),
+            pipeline.scoreDepth(), pipeline.writeDepth(), pipeline.stalls(), pipeline.stallMs(),
+            d == null ? 0 : d.duplicatesThisRun(), d == null ? 0 : d.duplicatesEarlier(),
+            t == null ? 0 : t.size(), t == null ? 0 : t.evicted(), cpuJson, p == null ? "null" : p.toJson(),
+            phase1Latency.toJson(), phase2Latency.toJson(), weekLatency.toJson(),
+            attemptLatency.toJson(), venueLatency.toJson()
         );
     }
 
+    private static String resolveInstanceId() {
+        try { return InetAddress.getLocalHost().getHostName(); }
+        catch (Exception e) { return "unknown"; }
+    }
+
     private static String extractStringField(String json, String field) {
         String key = "\"" + field + "\":\"";
         int start  = json.indexOf(key);
@@ -416,10 +731,103 @@ public class MainMultiThreaded {
         return end < 0 ? "unknown" : json.substring(start, end);
     }
 
+    /**
+     * Stores one pushed frame or object and records it in the history.  A
+     * frame's "at" is on the sender's clock, so it is recorded at at + skew,
+     * skew being the batch's receive time less its newest frame's "at": the
+     * newest lands at the receive time and a replayed backlog keeps its
+     * spacing, whatever the sender's clock says.  False if it is a delta on
+     * a frame this aggregator does not hold.
+     */
+    private static boolean applyPush(String line, long skew) {
+        long                now        = System.currentTimeMillis();
+        Map<String, String> fields     = MetricsStream.topLevelFields(line);
+        String              instanceId = extractStringField(line, "instanceId");
+        if (!fields.containsKey("seq")) {
+            pushedMetrics.put(instanceId, new PushedInstance(line, now, null));
+            history.record(instanceId, line, now);
+            return true;
+        }
+        long at = Long.parseLong(fields.get("at"));
+        synchronized (pushedMetrics) {
+            PushedInstance         previous = pushedMetrics.get(instanceId);
+            MetricsPusher.Received state    = MetricsPusher.apply(previous == null ? null : previous.state, fields);
+            if (state == null) return false;
+            String json = MetricsPusher.json(instanceId, state);
+            pushedMetrics.put(instanceId, new PushedInstance(json, now, state));
+            history.record(instanceId, json, at + skew);
+        }
+        return true;
+    }
+
+    /** Pushed instances heard from in the last PrometheusExporter.PUSH_TTL_MS, JSON by instance id. */
+    private static Map<String, String> livePushedMetrics() {
+        long                now  = System.currentTimeMillis();
+        Map<String, String> live = new TreeMap<>();
+        for (Map.Entry<String, PushedInstance> e : pushedMetrics.entrySet()) {
+            if (now - e.getValue().receivedAt < PrometheusExporter.PUSH_TTL_MS) live.put(e.getKey(), e.getValue().json);
+        }
+        return live;
+    }
+
+    /** This instance's /metrics JSON, then every live pushed instance's, by instance id. */
+    private static Map<String, String> allMetrics(int nThreads) {
+        String              localJson = buildMetricsJson(nThreads);
+        Map<String, String> all       = new LinkedHashMap<>();
+        all.put(extractStringField(localJson, "instanceId"), localJson);
+        livePushedMetrics().forEach(all::putIfAbsent);
+        return all;
+    }
+
+    /** The query string of uri as name → value; a repeated name keeps its last value. */
+    private static Map<String, String> queryParams(URI uri) {
+        Map<String, String> params = new TreeMap<>();
+        String              query  = uri.getRawQuery();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                       URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /**
+     * Samples this instance's metrics into the history every finest step
+     * (pushed instances are recorded as their pushes arrive), evicts silent
+     * instances, and saves the history every HISTORY_SAVE_SECS.
+     */
+    private static void startHistorySampler(int nThreads) {
+        Thread t = new Thread(() -> {
+            long stepMs   = MetricsHistory.TIERS[0].stepMs();
+            long evictMs  = HISTORY_EVICT_MINS * 60_000L;
+            long lastSave = System.currentTimeMillis();
+            while (!Thread.currentThread().isInterrupted()) {
+                try { Thread.sleep(stepMs); } catch (InterruptedException e) { break; }
+                long   now   = System.currentTimeMillis();
+                history.record(INSTANCE_ID, buildMetricsJson(nThreads), now);
+
+                pushedMetrics.values().removeIf(p -> now - p.receivedAt > evictMs);
+                history.evict(now);
+
+                if (HISTORY_FILE != null && now - lastSave >= HISTORY_SAVE_SECS * 1000L) {
+                    try { history.save(); } catch (IOException e) { e.printStackTrace(); }
+                    lastSave = now;
+                }
+            }
+        }, "history");
+        t.setDaemon(true);
+        t.start();
+    }
+
     private static void startMetricsServer(int nThreads) {
         try {
+            // Reading a request is capped at 5 s.  maxRspTime is deliberately
+            // left unset: /stream responses stay open for as long as a
+            // dashboard does.  Other responses are a few KB and fit in the
+            // socket buffer, so a slow reader cannot tie up a handler thread.
             System.setProperty("sun.net.httpserver.maxReqTime", "5");
-            System.setProperty("sun.net.httpserver.maxRspTime", "5");
             HttpServer server = HttpServer.create(new InetSocketAddress(8080), 0);
 
             // /metrics — local instance stats (backwards compatible)
@@ -431,30 +839,58 @@ public class MainMultiThreaded {
                 try (OutputStream os = exchange.getResponseBody()) { os.write(bytes); }
             });
 
-            // /push — accept metrics from a remote instance
+            // /leaderboard — the best schedules saved so far, see TopSolutions
+            server.createContext("/leaderboard", exchange -> {
+                TopSolutions t     = top;
+                byte[]       bytes = (t == null ? "{\"capacity\":0,\"size\":0,\"entries\":[]}" : t.toJson()).getBytes();
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) { os.write(bytes); }
+            });
+
+            // /telemetry — where attempts die, see SearchTelemetry
+            server.createContext("/telemetry", exchange -> {
+                byte[] bytes = telemetry.toJson().getBytes();
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) { os.write(bytes); }
+            });
+
+            // /push — accept metrics from a remote instance: MetricsPusher frames,
+            // one per line, or a whole /metrics object from an older pusher
             server.createContext("/push", exchange -> {
                 if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
                     exchange.sendResponseHeaders(405, -1);
                     return;
                 }
-                String body       = new String(exchange.getRequestBody().readAllBytes());
-                String instanceId = extractStringField(body, "instanceId");
-                pushedMetrics.put(instanceId, new PushedInstance(body, System.currentTimeMillis()));
+                InputStream in = exchange.getRequestBody();
+                if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding")))
+                    in = new GZIPInputStream(in);
+                String   body   = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                String[] lines  = body.split("\n");
+                long     newest = Long.MIN_VALUE;
+                for (String line : lines) {
+                    double at = PrometheusExporter.number(line, "at");
+                    if (!Double.isNaN(at)) newest = Math.max(newest, (long) at);
+                }
+                long skew   = newest == Long.MIN_VALUE ? 0 : System.currentTimeMillis() - newest;
+                int  status = 204;
+                for (String line : lines) {
+                    if (line.isBlank()) continue;
+                    if (!applyPush(line, skew)) { status = 409; break; }
+                }
                 exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-                exchange.sendResponseHeaders(204, -1);
+                exchange.sendResponseHeaders(status, -1);
             });
 
             // /all-metrics — local + all live pushed instances
             server.createContext("/all-metrics", exchange -> {
-                String localJson  = buildMetricsJson(nThreads);
-                String localId    = extractStringField(localJson, "instanceId");
                 StringBuilder all = new StringBuilder("{");
-                all.append("\"").append(localId).append("\":").append(localJson);
-                long now = System.currentTimeMillis();
-                for (Map.Entry<String, PushedInstance> e : pushedMetrics.entrySet()) {
-                    if (now - e.getValue().receivedAt < 10_000) {
-                        all.append(",\"").append(e.getKey()).append("\":").append(e.getValue().json);
-                    }
+                for (Map.Entry<String, String> e : allMetrics(nThreads).entrySet()) {
+                    if (all.length() > 1) all.append(',');
+                    all.append("\"").append(e.getKey()).append("\":").append(e.getValue());
                 }
                 all.append("}");
                 byte[] bytes = all.toString().getBytes();
@@ -464,6 +900,56 @@ public class MainMultiThreaded {
                 try (OutputStream os = exchange.getResponseBody()) { os.write(bytes); }
             });
 
+            // /history — metric trends, see MetricsHistory.
+            //   ?tier=2s|1m|15m  &instance=id  &metrics=attempts,solPerHr  &since=epoch ms
+            server.createContext("/history", exchange -> {
+                Map<String, String>  q       = queryParams(exchange.getRequestURI());
+                MetricsHistory.Tier  tier    = MetricsHistory.tier(q.getOrDefault("tier", "2s"));
+                String[]             metrics = q.containsKey("metrics") ? q.get("metrics").split(",")
+                                                                        : MetricsHistory.METRICS;
+                boolean              known   = tier != null;
+                for (String m : metrics) known &= List.of(MetricsHistory.METRICS).contains(m);
+                if (!known) {
+                    byte[] bytes = ("unknown tier or metric; tiers 2s, 1m, 15m; metrics "
+                                    + String.join(",", MetricsHistory.METRICS)).getBytes();
+                    exchange.sendResponseHeaders(400, bytes.length);
+                    try (OutputStream os = exchange.getResponseBody()) { os.write(bytes); }
+                    return;
+                }
+                long   since = 0;
+                try { since = Long.parseLong(q.getOrDefault("since", "0")); } catch (NumberFormatException ignored) { }
+                byte[] bytes = history.toJson(tier, q.get("instance"), metrics, since).getBytes();
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) { os.write(bytes); }
+            });
+
+            // /stream — /all-metrics as server-sent events, changes only, see MetricsStream
+            stream = new MetricsStream(() -> allMetrics(nThreads), STREAM_MS, STREAM_MAX_CLIENTS);
+            stream.start();
+            server.createContext("/stream", exchange -> {
+                if (!stream.subscribe(exchange)) {
+                    exchange.getResponseHeaders().add("Retry-After", "10");
+                    exchange.sendResponseHeaders(503, -1);
+                    exchange.close();
+                }
+            });
+
+            // /prometheus — everything above in Prometheus text format, see PrometheusExporter
+            prometheus = new PrometheusExporter(
+                () -> buildMetricsJson(nThreads), MainMultiThreaded::livePushedMetrics,
+                Map.of("phase1", phase1Latency, "phase2", phase2Latency, "week", weekLatency,
+                       "attempt", attemptLatency, "venue_optimize", venueLatency),
+                PROMETHEUS_MS);
+            prometheus.start();
+            server.createContext("/prometheus", exchange -> {
+                byte[] bytes = prometheus.page();
+                exchange.getResponseHeaders().add("Content-Type", PrometheusExporter.CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) { os.write(bytes); }
+            });
+
             server.setExecutor(Executors.newFixedThreadPool(2));
             server.start();
         } catch (IOException e) {
@@ -471,33 +957,44 @@ public class MainMultiThreaded {
         }
     }
 
-    private static void startMetricsPush(String aggregatorUrl, int nThreads) {
+
+    /** Rewrites the leaderboard snapshot every TOP_SNAPSHOT_SECS while it changes. */
+    private static void startTopSnapshots(Path file) {
         Thread t = new Thread(() -> {
+            long written = 0;
             while (!Thread.currentThread().isInterrupted()) {
+                try { Thread.sleep(TOP_SNAPSHOT_SECS * 1000L); } catch (InterruptedException e) { break; }
+                TopSolutions board   = top;
+                long         offered = board.offered();
+                if (offered == written) continue;
                 try {
-                    byte[]            body = buildMetricsJson(nThreads).getBytes();
-                    HttpURLConnection conn = (HttpURLConnection)
-                        URI.create(aggregatorUrl).toURL().openConnection();
-                    conn.setRequestMethod("POST");
-                    conn.setDoOutput(true);
-                    conn.setRequestProperty("Content-Type", "application/json");
-                    conn.setConnectTimeout(3000);
-                    conn.setReadTimeout(3000);
-                    try (OutputStream os = conn.getOutputStream()) { os.write(body); }
-                    conn.getResponseCode();
-                    conn.disconnect();
-                } catch (Exception ignored) {}
-                try { Thread.sleep(2000); } catch (InterruptedException e) { break; }
+                    board.writeSnapshot(file);
+                    written = offered;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
             }
-        });
+        }, "top-snapshots");
         t.setDaemon(true);
         t.start();
     }
 
+    private static int widest(String... cells) {
+        int w = 0;
+        for (String c : cells) w = Math.max(w, c.length());
+        return w;
+    }
+
     private static String lbl(String label, String value) {
         return label + ": " + value;
     }
 
+    private static String formatBytes(long bytes) {
+        if (bytes >= 1L << 20) return String.format("%.1f MB", bytes / (double) (1L << 20));
+        if (bytes >= 1L << 10) return String.format("%.1f KB", bytes / (double) (1L << 10));
+        return bytes + " B";
+    }
+
     private static String formatMs(long millis) {
         long s = Math.max(millis, 0) / 1000;
         return String.format("%02d:%02d:%02d", s / 3600, (s % 3600) / 60, s % 60);
@@ -505,105 +1002,208 @@ public class MainMultiThreaded {
 
     // ── File output ───────────────────────────────────────────────────────────
 
-    private static void writeSolution(MatchMatrix matches, int threadId, int solutionNum) {
+    /**
+     * Scorer stage: venue-optimizes a finished schedule and renders it.
+     * Returns null when the schedule is not worth saving.
+     */
+    private static SolutionPipeline.Scored scoreSolution(SolutionPipeline.Snapshot snapshot) {
+
+        // Schedules already seen, up to CanonicalForm's symmetries, are dropped
+        // before any scoring.
+        MatchMatrix   matches = snapshot.matches();
+        SolutionDedup d       = dedup;
+        if (d != null && !d.firstSighting(matches)) return null;
+
+        // A cheap necessary condition screens out schedules where two or more
+        // teams cannot reach their venue targets under any assignment; only
+        // the rest go to the exact optimizer.  With -Drepair=true, near misses
+        // — exactly two teams out of reach, or an exact optimum one team
+        // short — get a tabu repair of their pairings and are saved if it
+        // succeeds.  Anything further off is dropped: repairs of those
+        // practically never succeed.
+        VenueOptimizer.OptResult venueResult = null;
+        boolean                  repaired    = false;
+        if (VenueOptimizer.isSupported()) {
+            int[][][][] pairs      = VenueOptimizer.weekMatchPairs(matches);
+            int         outOfReach = VenueOptimizer.teamsOutOfReach(pairs);
+            venueChecked.incrementAndGet();
+            if (outOfReach > 1) {
+                venueRejected.incrementAndGet();
+            } else {
+                SchedulerEvents.VenueSolve solve = new SchedulerEvents.VenueSolve();
+                long t0 = System.nanoTime();
+                solve.begin();
+                venueResult = VenueOptimizer.optimize(pairs, scoringPool);
+                solve.end();
+                venueLatency.record(System.nanoTime() - t0);
+                commit(solve, false, venueResult);
+            }
 
-        // Run venue optimization first — pure computation, no I/O needed yet.
-        VenueOptimizer.OptResult venueResult = VenueOptimizer.optimize(matches);
+            boolean nearMiss = venueResult == null ? outOfReach <= REPAIR_MAX_OUT_OF_REACH
+                                                   : venueResult.teamsInRange == venueResult.nTeams - 2;
+            if (REPAIR && nearMiss) {
+                repairTried.incrementAndGet();
+                int[] seed = venueResult == null ? null : venueResult.choices;
+                SchedulerEvents.VenueSolve solve = new SchedulerEvents.VenueSolve();
+                solve.begin();
+                venueResult = VenueRepair.repair(pairs, seed, scoringPool);
+                solve.end();
+                commit(solve, true, venueResult);
+                if (venueResult == null) return null;
+                matches  = VenueRepair.toMatchMatrix(venueResult.weekMatchPairs);
+                repaired = true;
+                // Different near misses can repair to the same schedule
+                if (d != null && !d.firstSighting(matches)) return null;
+                repairPromoted.incrementAndGet();
+            }
+        }
 
-        // Only write files when at most 1 team is outside the venue target range
+        // Only save when at most 1 team is outside the venue target range
         // (i.e. 15/16, 16/16, 13/14, 14/14).
         // If venue optimization is unsupported (venueResult == null), always save.
         if (venueResult != null && venueResult.teamsInRange < venueResult.nTeams - 1) {
-            return;
+            return null;
         }
-
-        savedCount.incrementAndGet();
-        lastSolutionMs.set(System.currentTimeMillis());
-
-        String timestamp = LocalDateTime.now()
-            .format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS"));
-        String filename  = "matches_"        + timestamp + "_t" + threadId + ".txt";
-        String venueFile = "venue_schedule_" + timestamp + "_t" + threadId + ".txt";
-
-        synchronized (outputLock) {
-            try (PrintStream fileOut = new PrintStream(new FileOutputStream(filename))) {
-                PrintStream originalOut = System.out;
-                System.setOut(fileOut);
-                matches.printMatrix();
-                matches.printMatches();
-                printCourtCounts(matches);
-                System.out.flush();
-                System.setOut(originalOut);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-
-            if (venueResult != null) {
-                VenueOptimizer.writeOutput(venueResult, filename, venueFile);
-                VenueOptimizer.appendSummary(venueResult, filename);
-            }
-        }
-
+        // Nor when it cannot make the leaderboard as it stands
+        TopSolutions t = top;
+        if (t != null && venueResult != null && !t.mayEnter(venueResult)) return null;
+        byte[] rendered = writeTextFiles() ? ScheduleRenderer.render(matches) : null;
+        return new SolutionPipeline.Scored(snapshot, matches.weekView(), rendered, venueResult, repaired);
     }
 
-    // ── Court count summary ───────────────────────────────────────────────────
+    // ── Flight Recorder events ────────────────────────────────────────────────
 
-    public static void printCourtCounts(MatchMatrix matches) {
-
-        int[][] groups  = Config.getScheduleGroups();
-        int mainCourts  = Config.getMainCourts();
-        int bpCourts    = Config.getBpCourts();
-        int gerryCourts = Config.getGerryCourts();
+    private static void commit(SchedulerEvents.Phase1 phase1, int week, int group, long draws, boolean cutoff) {
+        phase1.end();
+        if (!phase1.shouldCommit()) return;
+        phase1.week   = week + 1;
+        phase1.group  = group;
+        phase1.draws  = draws;
+        phase1.cutoff = cutoff;
+        phase1.commit();
+    }
 
-        int mainStart  = 0;
-        int mainEnd    = mainCourts - 1;
-        int bpStart    = mainCourts;
-        int bpEnd      = mainCourts + bpCourts - 1;
-        int gerryStart = mainCourts + bpCourts;
-        int gerryEnd   = mainCourts + bpCourts + gerryCourts - 1;
+    private static void commit(SchedulerEvents.VenueSolve solve, boolean repair, VenueOptimizer.OptResult result) {
+        if (!solve.shouldCommit()) return;
+        solve.repair       = repair;
+        solve.teamsInRange = result == null ? -1 : result.teamsInRange;
+        solve.score        = result == null ? Double.NaN : result.score;
+        solve.commit();
+    }
 
-        int totalListSize = MatchMatrix.TOTAL_MATCHES + 1;
-        List<Integer> matchIndexes = new ArrayList<>();
-        for (int k = 1; k < totalListSize; k++) {
-            for (int i = 1; i < totalListSize; i++) {
-                if (matches.getMatchValueByIndex(i) == k) {
-                    matchIndexes.add(i);
+    /**
+     * Writer stage: appends a batch of scored schedules to the solution log
+     * and, if enabled, writes their text files.  With a leaderboard, only
+     * schedules that enter it are saved, and the text files of those pushed
+     * out are deleted.
+     */
+    private static void writeSolutions(List<SolutionPipeline.Scored> batch) {
+
+        SchedulerEvents.SolutionWrite writeEvent = new SchedulerEvents.SolutionWrite();
+        writeEvent.begin();
+
+        TopSolutions                  t       = top;
+        List<SolutionPipeline.Scored> saving  = batch;
+        List<TopSolutions.Entry>      entries = null;
+        List<TopSolutions.Entry>      evicted = null;
+        if (t != null) {
+            saving  = new ArrayList<>(batch.size());
+            entries = new ArrayList<>(batch.size());
+            evicted = new ArrayList<>();
+            for (SolutionPipeline.Scored scored : batch) {
+                if (scored.venueResult == null) continue;
+                TopSolutions.Entry entry = new TopSolutions.Entry(System.currentTimeMillis(),
+                        scored.source.threadId, scored.source.solutionNum, scored.venueResult, scored.repaired);
+                TopSolutions.Entry left  = t.offer(entry);
+                if (left == entry) continue;
+                if (left != null) evicted.add(left);
+                saving.add(scored);
+                entries.add(entry);
+            }
+            // One of this batch may already have been pushed out by a later one
+            for (int i = saving.size() - 1; i >= 0; i--) {
+                if (evicted.remove(entries.get(i))) {
+                    saving.remove(i);
+                    entries.remove(i);
                 }
             }
         }
 
-        int[] main  = new int[MATCHES_PER_WEEK + 1];
-        int[] bp    = new int[MATCHES_PER_WEEK + 1];
-        int[] gerry = new int[MATCHES_PER_WEEK + 1];
+        SolutionLog log = solutionLog;
+        if (log != null) {
+            synchronized (log) {
+                try {
+                    for (int i = 0; i < saving.size(); i++) {
+                        SolutionPipeline.Scored scored = saving.get(i);
+                        log.append(System.currentTimeMillis(), scored.source.solutionNum,
+                                   scored.source.threadId, scored.weeks, scored.venueResult, scored.repaired);
+                        if (entries != null) entries.get(i).logRecord = log.lastAppended();
+                    }
+                    log.flush();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
 
-        int gamesPerWeek = MATCHES_PER_WEEK;
-        int weekCount    = (matchIndexes.size() + gamesPerWeek - 1) / gamesPerWeek;
+        for (int i = 0; i < saving.size(); i++) {
+            SolutionPipeline.Scored scored = saving.get(i);
+            if (scored.rendered != null) {
+                String name      = solutionFileName(LocalDateTime.now(), scored.source.threadId,
+                                                    scored.source.solutionNum, scored.repaired);
+                String filename  = "matches_"        + name;
+                String venueFile = "venue_schedule_" + name;
+
+                try (OutputStream fileOut = new FileOutputStream(filename)) {
+                    fileOut.write(scored.rendered);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
 
-        for (int week = 0; week < weekCount; week++) {
-            int base = week * gamesPerWeek;
-            for (int[] group : groups) {
-                for (int j = 0; j < group.length; j++) {
-                    int idx = base + group[j];
-                    if (idx >= matchIndexes.size()) continue;
+                if (scored.venueResult != null) {
+                    VenueOptimizer.writeOutput(scored.venueResult, filename, venueFile);
+                    VenueOptimizer.appendSummary(scored.venueResult, filename);
+                }
+                if (entries != null) entries.get(i).textName = name;
+            }
 
-                    int matchNum = matchIndexes.get(idx);
-                    int t1 = matches.getRow(matchNum) + 1;
-                    int t2 = matches.getCol(matchNum) + 1;
+            savedCount.incrementAndGet();
+            lastSolutionMs.set(System.currentTimeMillis());
+        }
 
-                    if      (j >= mainStart  && j <= mainEnd)  { main[t1]++;  main[t2]++;  }
-                    else if (j >= bpStart    && j <= bpEnd)    { bp[t1]++;    bp[t2]++;    }
-                    else if (j >= gerryStart && j <= gerryEnd) { gerry[t1]++; gerry[t2]++; }
+        if (evicted != null) {
+            for (TopSolutions.Entry gone : evicted) {
+                if (gone.textName == null) continue;
+                try {
+                    Files.deleteIfExists(Path.of("matches_"        + gone.textName));
+                    Files.deleteIfExists(Path.of("venue_schedule_" + gone.textName));
+                } catch (IOException e) {
+                    e.printStackTrace();
                 }
             }
         }
 
-        System.out.println();
-        System.out.printf("     %-6s%-4s%-6s%n", "Main", "BP", "Gerry");
-        for (int t = 1; t <= MATCHES_PER_WEEK; t++) {
-            System.out.printf("T%-2d  %6d%4d%6d%n", t, main[t], bp[t], gerry[t]);
+        writeEvent.end();
+        if (writeEvent.shouldCommit()) {
+            writeEvent.schedules = saving.size();
+            writeEvent.textFiles = writeTextFiles();
+            writeEvent.commit();
         }
     }
 
+    private static boolean writeTextFiles() {
+        return TEXT_FILES || solutionLog == null;
+    }
+
+    /**
+     * The name shared by a solution's matches_ and venue_schedule_ files.
+     * Batches share a millisecond: the solution number keeps names unique.
+     */
+    static String solutionFileName(LocalDateTime savedAt, int threadId, int solutionNum, boolean repaired) {
+        return savedAt.format(FILE_TIMESTAMP) + "_t" + threadId + "_s" + solutionNum
+               + (repaired ? "_repaired" : "") + ".txt";
+    }
+
     // ── Overlap table ─────────────────────────────────────────────────────────
 
     public static boolean hasOverlap(int r1, int c1, int r2, int c2) {
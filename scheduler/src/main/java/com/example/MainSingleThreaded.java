@@ -1,12 +1,10 @@
 package com.example;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -69,6 +67,13 @@ public class MainSingleThreaded {
         long loop1Time  = 0;
         long loop2Time  = 0;
 
+        // Where attempts die, for the whole run — written on Ctrl+C
+        SearchTelemetry          telemetry = new SearchTelemetry("MainSingleThreaded");
+        SearchTelemetry.Recorder tree      = telemetry.recorder();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try { telemetry.save(Path.of(SearchTelemetry.FILE)); } catch (IOException e) { e.printStackTrace(); }
+        }));
+
         System.out.println("Starting single-threaded search. Press Ctrl+C to stop.");
         System.out.println();
 
@@ -78,6 +83,7 @@ public class MainSingleThreaded {
             matches = new MatchMatrix();
             totalAttempts++;
             int match_pairings_attempts_counter = 1;
+            int weeksCompleted = 0;
 
             outerloop:
             for (int weeks_counter = 0, match_count = 1; weeks_counter < WEEKS; weeks_counter++) {
@@ -94,6 +100,7 @@ public class MainSingleThreaded {
                     elements_total  += courtMatches;
 
                     int match_attempts_counter = 1;
+                    int placedBefore = elements_counter;
                     startTime = System.nanoTime();
 
                     while (elements_counter < elements_total) {
@@ -101,6 +108,8 @@ public class MainSingleThreaded {
                         if (match_attempts_counter++ % 10_000 == 0) {
                             loop1Time += (System.nanoTime() - startTime);
                             break_counter_1++;
+                            tree.phase1(weeks_counter, court_counter, match_attempts_counter - 1,
+                                        elements_counter - placedBefore, true);
                             break outerloop;
                         }
 
@@ -127,6 +136,8 @@ public class MainSingleThreaded {
                     } // while elements
 
                     loop1Time += (System.nanoTime() - startTime);
+                    tree.phase1(weeks_counter, court_counter, match_attempts_counter - 1,
+                                elements_counter - placedBefore, false);
 
                     boolean matches_found = false;
                     startTime = System.nanoTime();
@@ -179,6 +190,11 @@ public class MainSingleThreaded {
                         }
                     } // pairing loop
 
+                    boolean giveUp = !matches_found
+                        && (match_pairings_attempts_counter++ % 100_000 == 0 && weeks_counter + 1 == WEEKS ||
+                            match_pairings_attempts_counter     % 50_000  == 0 && weeks_counter + 1 < WEEKS);
+                    tree.phase2(weeks_counter, court_counter, matches_found, giveUp);
+
                     if (!matches_found) {
 
                         loop2Time += (System.nanoTime() - startTime);
@@ -190,8 +206,7 @@ public class MainSingleThreaded {
 
                         temp_matches = matches.copy();
 
-                        if (match_pairings_attempts_counter++ % 100_000 == 0 && weeks_counter + 1 == WEEKS ||
-                            match_pairings_attempts_counter     % 50_000  == 0 && weeks_counter + 1 < WEEKS) {
+                        if (giveUp) {
 
                             break_counter_2++;
                             loop2Time += (System.nanoTime() - startTime);
@@ -219,6 +234,7 @@ public class MainSingleThreaded {
                 } // court loop
 
                 matches = temp_matches.copy();
+                weeksCompleted++;
 
                 // ── Solution found ────────────────────────────────────────────
                 if (weeks_counter + 1 == WEEKS) {
@@ -235,14 +251,8 @@ public class MainSingleThreaded {
                         .format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS"));
                     String filename = "matches_" + timestamp + ".txt";
 
-                    try (PrintStream fileOut = new PrintStream(new FileOutputStream(filename))) {
-                        PrintStream originalOut = System.out;
-                        System.setOut(fileOut);
-                        matches.printMatrix();
-                        matches.printMatches();
-                        printCourtCounts(matches);
-                        System.out.flush();
-                        System.setOut(originalOut);
+                    try {
+                        ScheduleRenderer.write(matches, filename);
                     } catch (IOException e) {
                         e.printStackTrace();
                     }
@@ -270,6 +280,8 @@ public class MainSingleThreaded {
 
             } // weeks loop
 
+            tree.attemptEnded(weeksCompleted);
+
         } // while not interrupted
 
         // ── Final summary on Ctrl+C ───────────────────────────────────────────
@@ -289,62 +301,6 @@ public class MainSingleThreaded {
         return String.format("%02d:%02d:%02d", s / 3600, (s % 3600) / 60, s % 60);
     }
 
-    public static void printCourtCounts(MatchMatrix matches) {
-
-        int[][] groups  = Config.getScheduleGroups();
-        int mainCourts  = Config.getMainCourts();
-        int bpCourts    = Config.getBpCourts();
-        int gerryCourts = Config.getGerryCourts();
-
-        int mainStart  = 0;
-        int mainEnd    = mainCourts - 1;
-        int bpStart    = mainCourts;
-        int bpEnd      = mainCourts + bpCourts - 1;
-        int gerryStart = mainCourts + bpCourts;
-        int gerryEnd   = mainCourts + bpCourts + gerryCourts - 1;
-
-        int totalListSize = MatchMatrix.TOTAL_MATCHES + 1;
-        List<Integer> matchIndexes = new ArrayList<>();
-        for (int k = 1; k < totalListSize; k++) {
-            for (int i = 1; i < totalListSize; i++) {
-                if (matches.getMatchValueByIndex(i) == k) {
-                    matchIndexes.add(i);
-                }
-            }
-        }
-
-        int[] main  = new int[MATCHES_PER_WEEK + 1];
-        int[] bp    = new int[MATCHES_PER_WEEK + 1];
-        int[] gerry = new int[MATCHES_PER_WEEK + 1];
-
-        int gamesPerWeek = MATCHES_PER_WEEK;
-        int weekCount    = (matchIndexes.size() + gamesPerWeek - 1) / gamesPerWeek;
-
-        for (int week = 0; week < weekCount; week++) {
-            int base = week * gamesPerWeek;
-            for (int[] group : groups) {
-                for (int j = 0; j < group.length; j++) {
-                    int idx = base + group[j];
-                    if (idx >= matchIndexes.size()) continue;
-
-                    int matchNum = matchIndexes.get(idx);
-                    int t1 = matches.getRow(matchNum) + 1;
-                    int t2 = matches.getCol(matchNum) + 1;
-
-                    if      (j >= mainStart  && j <= mainEnd)  { main[t1]++;  main[t2]++;  }
-                    else if (j >= bpStart    && j <= bpEnd)    { bp[t1]++;    bp[t2]++;    }
-                    else if (j >= gerryStart && j <= gerryEnd) { gerry[t1]++; gerry[t2]++; }
-                }
-            }
-        }
-
-        System.out.println();
-        System.out.printf("     %-6s%-4s%-6s%n", "Main", "BP", "Gerry");
-        for (int t = 1; t <= MATCHES_PER_WEEK; t++) {
-            System.out.printf("T%-2d  %6d%4d%6d%n", t, main[t], bp[t], gerry[t]);
-        }
-    }
-
     public static boolean hasOverlap(int r1, int c1, int r2, int c2) {
         int a = (r1 * MATCHES_PER_WEEK) + c1;
         int b = (r2 * MATCHES_PER_WEEK) + c2;
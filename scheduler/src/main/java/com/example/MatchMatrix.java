@@ -1,9 +1,7 @@
 package com.example;
 
-import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 import java.time.Duration;
-import java.util.ArrayList;
 
 public class MatchMatrix {
 
@@ -22,6 +20,11 @@ public class MatchMatrix {
     private int[] availablePos;
     // ------------------------------------------------------
 
+    // Inverse of list[]: order[value] = index of the match holding that value,
+    // 0 if none.  Kept in step by setMatchValueByRowCol, so walking the
+    // schedule in match-value order is linear instead of a value × index scan.
+    private int[] order;
+
     public static final int MATCHES_PER_WEEK = Config.getTeams();
     public static final int TOTAL_MATCHES    = MATCHES_PER_WEEK * (MATCHES_PER_WEEK - 1) / 2;
     public static final int ROW = 0;
@@ -37,6 +40,7 @@ public class MatchMatrix {
         to_list_map   = new int[MATCHES_PER_WEEK][MATCHES_PER_WEEK];
         availableMatches = new int[TOTAL_MATCHES];
         availablePos     = new int[TOTAL_MATCHES + 1];
+        order            = new int[TOTAL_MATCHES + 1];
         initializeMatrix();
     }
 
@@ -89,80 +93,123 @@ public class MatchMatrix {
         copy.availableCount = this.availableCount;
         System.arraycopy(this.availableMatches, 0, copy.availableMatches, 0, this.availableCount);
         System.arraycopy(this.availablePos,     0, copy.availablePos,     0, TOTAL_MATCHES + 1);
+        System.arraycopy(this.order,            0, copy.order,            0, TOTAL_MATCHES + 1);
 
         copy.totalMatches = this.totalMatches;
         copy.matchCount   = this.matchCount;
         return copy;
     }
 
+    // Match values by index (slot 0 unused) — a compact, detached copy of the
+    // schedule, e.g. for handing a finished solution to another thread.
+    public int[] toValues() {
+        return list.clone();
+    }
+
+    public static MatchMatrix fromValues(int[] values) {
+        MatchMatrix m = new MatchMatrix();
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != 0) m.setMatchValueByIndex(i, values[i]);
+        }
+        return m;
+    }
+
     public void printMatrix() {
-        System.out.print("     ");
+        StringBuilder out = new StringBuilder();
+        appendMatrix(out);
+        System.out.print(out);
+    }
+
+    public void printMatches() {
+        StringBuilder out = new StringBuilder();
+        appendMatches(out);
+        System.out.print(out);
+    }
+
+    // Renders what printMatrix() prints; see ScheduleRenderer.
+    public void appendMatrix(StringBuilder out) {
+        out.append("     ");
         for (int i = 0; i < MATCHES_PER_WEEK; i++) {
-            System.out.printf("C%-4d", i);
+            out.append('C');
+            ScheduleRenderer.padRight(out, i, 4);
         }
-        System.out.println();
+        out.append(ScheduleRenderer.NL);
         for (int row = 0; row < MATCHES_PER_WEEK; row++) {
-            System.out.printf("R%-3d", row);
+            out.append('R');
+            ScheduleRenderer.padRight(out, row, 3);
             for (int col = 0; col < MATCHES_PER_WEEK; col++) {
                 if (matrix[row][col] > 0 || matrix[row][col] == -1)
-                    System.out.printf("%-5s", matrix[row][col]);
+                    ScheduleRenderer.padRight(out, matrix[row][col], 5);
                 else if (matrix[row][col] == -2)
-                    System.out.printf("%-5s", " |   ");
+                    out.append(" |   ");
                 else
-                    System.out.printf("%-5s", ".....");
+                    out.append(".....");
             }
-            System.out.println();
+            out.append(ScheduleRenderer.NL);
         }
     }
 
-    public void printMatches() {
-        List<Integer> matchIndexes = new ArrayList<>();
+    // Renders what printMatches() prints; see ScheduleRenderer.
+    public void appendMatches(StringBuilder out) {
 
         // Header built from Config
-        System.out.print("\t\t");
+        out.append("\t\t");
         String[] courtNames = Config.getCourtNames();
         for (int n = 0; n < courtNames.length; n++) {
-            if (n > 0) System.out.print("\t");
-            System.out.print(courtNames[n]);
-        }
-        System.out.println();
-
-        for (int k = 1; k < list.length; k++) {
-            for (int i = 1; i < list.length; i++) {
-                if (list[i] == k) {
-                    matchIndexes.add(i);
-                }
-            }
+            if (n > 0) out.append('\t');
+            out.append(courtNames[n]);
         }
+        out.append(ScheduleRenderer.NL);
 
-        int gamesPerWeek = MATCHES_PER_WEEK;
-        int weekCount    = (matchIndexes.size() + gamesPerWeek - 1) / gamesPerWeek;
-        int[][] groups   = Config.getScheduleGroups();
+        int[][] weeks  = weekView();
+        int[][] groups = Config.getScheduleGroups();
 
-        for (int week = 0; week < weekCount; week++) {
-            int base = week * gamesPerWeek;
+        for (int week = 0; week < weeks.length; week++) {
             for (int g = 0; g < groups.length; g++) {
-                System.out.print("Week " + (week + 1) + "\t");
+                out.append("Week ").append(week + 1).append('\t');
                 for (int j = 0; j < groups[g].length; j++) {
-                    int idx = base + groups[g][j];
-                    if (j > 0) System.out.print("\t");
-                    if (idx < matchIndexes.size()) {
-                        int matchNum = matchIndexes.get(idx);
-                        int r = to_matrix_map[matchNum][ROW];
-                        int c = to_matrix_map[matchNum][COL];
-                        if (r < c)
-                            System.out.printf("T%2d vs T%2d", r + 1, c + 1);
-                        else
-                            System.out.printf("T%2d vs T%2d", c + 1, r + 1);
+                    int slot = groups[g][j];
+                    if (j > 0) out.append('\t');
+                    if (weeks[week][2 * slot] >= 0) {
+                        out.append('T');
+                        ScheduleRenderer.padLeft(out, weeks[week][2 * slot] + 1, 2);
+                        out.append(" vs T");
+                        ScheduleRenderer.padLeft(out, weeks[week][2 * slot + 1] + 1, 2);
                     } else {
-                        System.out.print("  -   ");
+                        out.append("  -   ");
                     }
                 }
-                System.out.println();
+                out.append(ScheduleRenderer.NL);
             }
         }
     }
 
+    // Compact per-week view of the schedule, in match-value order: slot s of
+    // week w is teams weeks[w][2*s] vs weeks[w][2*s+1], lower team first, and
+    // both are -1 past the last scheduled match.  Values are numbered week by
+    // week, slot by slot, so this is the schedule as generated.
+    public int[][] weekView() {
+        int scheduled = 0;
+        for (int v = 1; v < order.length; v++) if (order[v] != 0) scheduled++;
+
+        int[][] weeks = new int[(scheduled + MATCHES_PER_WEEK - 1) / MATCHES_PER_WEEK][2 * MATCHES_PER_WEEK];
+        int     k     = 0;
+        for (int v = 1; v < order.length; v++) {
+            int index = order[v];
+            if (index == 0) continue;
+            int[] week = weeks[k / MATCHES_PER_WEEK];
+            int   slot = k % MATCHES_PER_WEEK;
+            week[2 * slot]     = to_matrix_map[index][COL]; // col < row
+            week[2 * slot + 1] = to_matrix_map[index][ROW];
+            k++;
+        }
+        for (; k < weeks.length * MATCHES_PER_WEEK; k++) {
+            weeks[k / MATCHES_PER_WEEK][2 * (k % MATCHES_PER_WEEK)]     = -1;
+            weeks[k / MATCHES_PER_WEEK][2 * (k % MATCHES_PER_WEEK) + 1] = -1;
+        }
+        return weeks;
+    }
+
     public int getMatchValueByRowCol(int row, int col) {
         validateTeamIndex(row);
         validateTeamIndex(col);
@@ -181,7 +228,9 @@ public class MatchMatrix {
 
         matrix[r][c]         = value;
         int index            = to_list_map[r][c];
+        if (list[index] > 0 && order[list[index]] == index) order[list[index]] = 0;
         list[index]          = value;
+        if (value > 0) order[value] = index;
 
         // Remove from available pool (swap with last element)
         if (value != 0) {
@@ -0,0 +1,309 @@
+package com.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metrics History
+ * ===============
+ * Trends of the /metrics figures for this instance and every pushed one,
+ * in fixed-size ring buffers at three resolutions:
+ *
+ *   tier   step     points   span
+ *   2s     2 s      1,800    1 hour
+ *   1m     1 min    1,440    1 day
+ *   15m    15 min     672    1 week
+ *
+ * Every sample goes into all three; a coarser point is the mean of the
+ * samples in its step.  Memory per instance is fixed (about 450 KB), however
+ * long the run.  An instance with no sample for evictAfterMs is dropped.
+ *
+ * History can be saved to a file and is read back by the constructor, so
+ * it survives a restart; a file from another version or a damaged one is
+ * ignored.  Metrics are matched by name, so adding one to METRICS keeps
+ * the history of the others.
+ *
+ * Samples come from one thread; /history requests read concurrently, each
+ * instance's rings under that instance's lock.
+ */
+final class MetricsHistory {
+
+    /** The /metrics fields kept, in the order /history lists them. */
+    static final String[] METRICS = {
+        "attempts", "solutionsFound", "solutions", "attPerMin", "solPerHr", "peakWeek", "sinceLastSolMs",
+        "scoreQueue", "writeQueue", "pipelineStalls", "topSize", "cpuMs", "cpuUtilization", "attPerCpuSec",
+    };
+
+    /** One resolution: a point per stepMs, the last capacity of them. */
+    record Tier(String name, long stepMs, int capacity) {}
+
+    static final Tier[] TIERS = {
+        new Tier("2s",  2_000,   1_800),
+        new Tier("1m",  60_000,  1_440),
+        new Tier("15m", 900_000, 672),
+    };
+
+    private static final byte[] MAGIC   = "SCHEDHST".getBytes(StandardCharsets.US_ASCII);
+    private static final int    VERSION = 1;
+
+    private final Path                              file; // null: not persisted
+    private final long                              evictAfterMs;
+    private final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+
+    /**
+     * An empty history, or the one saved in file if there is one.  file may
+     * be null for a history kept in memory only.
+     */
+    MetricsHistory(Path file, long evictAfterMs) {
+        this.file         = file;
+        this.evictAfterMs = evictAfterMs;
+        if (file == null) return;
+        try {
+            load(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            // first run
+        } catch (IOException e) {
+            series.clear();
+            System.err.println(file + ": not a metrics history (" + e.getMessage() + ") — starting a new one");
+        }
+    }
+
+    // ── Recording ─────────────────────────────────────────────────────────────
+
+    /**
+     * Records instance's /metrics JSON as sampled at atMs.  A sample no newer
+     * than the instance's last — a pushed instance that has not pushed
+     * since — is ignored.
+     */
+    void record(String instance, String json, long atMs) {
+        double[] values = new double[METRICS.length];
+        for (int m = 0; m < METRICS.length; m++) values[m] = PrometheusExporter.number(json, METRICS[m]);
+        series.computeIfAbsent(instance, k -> new Series(METRICS.length)).add(atMs, values);
+    }
+
+    /** Drops instances with no sample in the last evictAfterMs; returns how many. */
+    int evict(long nowMs) {
+        int before = series.size();
+        series.values().removeIf(s -> nowMs - s.lastMs() > evictAfterMs);
+        return before - series.size();
+    }
+
+    /** Instances with history, sorted. */
+    String[] instances() {
+        String[] ids = series.keySet().toArray(new String[0]);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // ── Reading ───────────────────────────────────────────────────────────────
+
+    /** The tier called name, or null. */
+    static Tier tier(String name) {
+        for (Tier t : TIERS) if (t.name.equals(name)) return t;
+        return null;
+    }
+
+    /**
+     * The points of tier since sinceMs, as JSON: for each instance (or just
+     * the one named, if not null), its timestamps and one array per metric
+     * in metrics.  A metric an instance did not report is null at a point.
+     *
+     *   {"tier":"1m","stepMs":60000,"metrics":[...],"instances":{"vm":{"t":[...],"attempts":[...],...}}}
+     */
+    String toJson(Tier tier, String instance, String[] metrics, long sinceMs) {
+        int   t       = Arrays.asList(TIERS).indexOf(tier);
+        int[] columns = new int[metrics.length];
+        for (int i = 0; i < metrics.length; i++) columns[i] = Arrays.asList(METRICS).indexOf(metrics[i]);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("{\"tier\":\"%s\",\"stepMs\":%d,\"metrics\":[", tier.name, tier.stepMs));
+        for (int i = 0; i < metrics.length; i++) sb.append(i > 0 ? "," : "").append('"').append(metrics[i]).append('"');
+        sb.append("],\"instances\":{");
+        boolean first = true;
+        for (String id : instances()) {
+            if (instance != null && !instance.equals(id)) continue;
+            Series s = series.get(id);
+            if (s == null) continue;
+            sb.append(first ? "" : ",").append('"').append(id).append("\":");
+            s.toJson(sb, t, columns, sinceMs);
+            first = false;
+        }
+        return sb.append("}}").toString();
+    }
+
+    // ── Storage ───────────────────────────────────────────────────────────────
+
+    /** One ring of points: times[i] and values[m][i], oldest at head - size. */
+    private static final class Ring {
+        final long       stepMs;
+        final long[]     times;
+        final double[][] values;
+        final int[]      newestCount; // samples averaged into the newest point, per metric
+        int              head, size;
+
+        Ring(Tier tier, int nMetrics) {
+            this.stepMs      = tier.stepMs;
+            this.times       = new long[tier.capacity];
+            this.values      = new double[nMetrics][tier.capacity];
+            this.newestCount = new int[nMetrics];
+        }
+
+        int index(int i) { return Math.floorMod(head - size + i, times.length); }
+
+        void add(long atMs, double[] sample) {
+            long step   = atMs - Math.floorMod(atMs, stepMs);
+            int  newest = Math.floorMod(head - 1, times.length);
+            if (size > 0 && times[newest] == step) {
+                for (int m = 0; m < sample.length; m++) {
+                    if (Double.isNaN(sample[m])) continue;
+                    int n = newestCount[m]++;
+                    values[m][newest] = n == 0 ? sample[m] : values[m][newest] + (sample[m] - values[m][newest]) / (n + 1);
+                }
+                return;
+            }
+            if (size > 0 && step < times[newest]) return; // out of order
+            times[head] = step;
+            for (int m = 0; m < sample.length; m++) {
+                values[m][head] = sample[m];
+                newestCount[m]  = Double.isNaN(sample[m]) ? 0 : 1;
+            }
+            head = (head + 1) % times.length;
+            if (size < times.length) size++;
+        }
+    }
+
+    /** One instance's rings, one per tier. */
+    private static final class Series {
+        final Ring[] rings = new Ring[TIERS.length];
+        long         lastMs;
+
+        Series(int nMetrics) {
+            for (int t = 0; t < TIERS.length; t++) rings[t] = new Ring(TIERS[t], nMetrics);
+        }
+
+        synchronized long lastMs() { return lastMs; }
+
+        synchronized void add(long atMs, double[] sample) {
+            if (atMs <= lastMs) return;
+            lastMs = atMs;
+            for (Ring r : rings) r.add(atMs, sample);
+        }
+
+        synchronized void toJson(StringBuilder sb, int tier, int[] columns, long sinceMs) {
+            Ring r     = rings[tier];
+            int  first = 0;
+            while (first < r.size && r.times[r.index(first)] < sinceMs) first++;
+
+            sb.append("{\"t\":[");
+            for (int i = first; i < r.size; i++) sb.append(i > first ? "," : "").append(r.times[r.index(i)]);
+            sb.append(']');
+            for (int c = 0; c < columns.length; c++) {
+                sb.append(",\"").append(METRICS[columns[c]]).append("\":[");
+                for (int i = first; i < r.size; i++) {
+                    double v = r.values[columns[c]][r.index(i)];
+                    sb.append(i > first ? "," : "").append(Double.isNaN(v) ? "null"
+                                                         : v == Math.rint(v) ? Long.toString((long) v)
+                                                         : String.format("%.4f", v));
+                }
+                sb.append(']');
+            }
+            sb.append('}');
+        }
+    }
+
+    // ── Persistence ───────────────────────────────────────────────────────────
+
+    //   MAGIC, VERSION, metric names, tier steps, then per instance: id, last
+    //   sample time, and per tier its points oldest first (time, values)
+
+    /** Writes the history to its file, replacing the previous one whole.  No-op without a file. */
+    void save() throws IOException {
+        if (file == null) return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream      out   = new DataOutputStream(bytes);
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(METRICS.length);
+        for (String m : METRICS) out.writeUTF(m);
+        out.writeInt(TIERS.length);
+        for (Tier t : TIERS) out.writeLong(t.stepMs);
+
+        Map<String, Series> snapshot = new TreeMap<>(series);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<String, Series> e : snapshot.entrySet()) {
+            Series s = e.getValue();
+            synchronized (s) {
+                out.writeUTF(e.getKey());
+                out.writeLong(s.lastMs);
+                for (Ring r : s.rings) {
+                    out.writeInt(r.size);
+                    for (int i = 0; i < r.size; i++) {
+                        int at = r.index(i);
+                        out.writeLong(r.times[at]);
+                        for (double[] column : r.values) out.writeDouble(column[at]);
+                    }
+                }
+            }
+        }
+        out.flush();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Files.write(tmp, bytes.toByteArray());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load(byte[] bytes) throws IOException {
+        DataInputStream in    = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte[]          magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION) throw new IOException("unknown format");
+
+        // Saved metric m goes to column[m] of ours, or nowhere (-1)
+        int[] column = new int[in.readInt()];
+        for (int m = 0; m < column.length; m++) column[m] = Arrays.asList(METRICS).indexOf(in.readUTF());
+        // Saved tier t goes to tier[t] of ours, or nowhere (-1)
+        int[] tier = new int[in.readInt()];
+        for (int t = 0; t < tier.length; t++) {
+            long step = in.readLong();
+            tier[t] = -1;
+            for (int i = 0; i < TIERS.length; i++) if (TIERS[i].stepMs == step) tier[t] = i;
+        }
+
+        long now     = System.currentTimeMillis();
+        int  nSeries = in.readInt();
+        for (int k = 0; k < nSeries; k++) {
+            String   id     = in.readUTF();
+            long     lastMs = in.readLong();
+            Series   s      = new Series(METRICS.length);
+            double[] point  = new double[METRICS.length];
+            for (int t = 0; t < tier.length; t++) {
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) {
+                    long time = in.readLong();
+                    Arrays.fill(point, Double.NaN);
+                    for (int m = 0; m < column.length; m++) {
+                        double v = in.readDouble();
+                        if (column[m] >= 0) point[column[m]] = v;
+                    }
+                    if (tier[t] >= 0) s.rings[tier[t]].add(time, point);
+                }
+            }
+            s.lastMs = lastMs;
+            if (now - lastMs <= evictAfterMs) series.put(id, s);
+        }
+    }
+}
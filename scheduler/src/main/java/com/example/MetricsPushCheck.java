@@ -0,0 +1,202 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Metrics Push Check
+ * ==================
+ * A developer check, not a runtime tool: run it by hand after changing
+ * MetricsPusher or /push.  It runs a MetricsPusher against a stand-in
+ * aggregator on a loopback port and checks the wire protocol end to end:
+ *
+ *   java -cp target/classes com.example.MetricsPushCheck
+ *
+ *   - the seq/base chain: a full first frame, then deltas on the one before,
+ *     each rebuilding exactly the JSON the pusher was given
+ *   - buffering: with the aggregator down, frames queue up to bufferFrames
+ *     and the oldest are dropped
+ *   - replay: the aggregator back with its state, the queue arrives in order,
+ *     the first frame a delta on the last acknowledged one
+ *   - the 409 resend: the aggregator back without its state, the first
+ *     batch is refused and the queue is resent starting with a full frame
+ *
+ * The stand-in applies frames with MetricsPusher.apply, as /push does, and
+ * is "killed" by stopping its server.  The pusher is driven by push() calls
+ * rather than its thread, so each phase sees a known queue.  Exits 1 if any
+ * check fails.
+ */
+final class MetricsPushCheck {
+
+    private static final String INSTANCE  = "push-check";
+    private static final long   PERIOD_MS = 20;
+    private static final int    BUFFER    = 5;
+    private static final long   DRAIN_MS  = 30_000;
+
+    /** One frame line as the stand-in saw it. */
+    private record Line(long seq, long base, boolean applied, boolean matches) {}
+
+    /** The aggregator: one instance's state, and every line it was sent. */
+    private static final class StandIn {
+        final List<String>     expected; // JSON given to the pusher, by seq
+        final List<Line>       lines = new ArrayList<>();
+        int                    port;     // 0 until first started: any free port
+        MetricsPusher.Received state;
+        HttpServer             server;
+
+        StandIn(List<String> expected) throws IOException {
+            this.expected = expected;
+            start();
+        }
+
+        void start() throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/push", exchange -> {
+                InputStream in = exchange.getRequestBody();
+                if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding")))
+                    in = new GZIPInputStream(in);
+                String body   = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                int    status = 204;
+                for (String line : body.split("\n")) {
+                    if (line.isBlank()) continue;
+                    if (!apply(line)) { status = 409; break; }
+                }
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            });
+            server.start();
+            port = server.getAddress().getPort();
+        }
+
+        void kill()   { server.stop(0); }
+        void forget() { state = null; }
+
+        private synchronized boolean apply(String line) {
+            Map<String, String>    fields = MetricsStream.topLevelFields(line);
+            long                   seq    = Long.parseLong(fields.get("seq"));
+            long                   base   = Long.parseLong(fields.get("base"));
+            MetricsPusher.Received next   = MetricsPusher.apply(state, fields);
+            boolean                ok     = next != null;
+            if (ok) state = next;
+            lines.add(new Line(seq, base, ok,
+                               ok && MetricsPusher.json(INSTANCE, next).equals(expected.get((int) seq))));
+            return ok;
+        }
+
+        synchronized List<Line> linesSince(int from) { return new ArrayList<>(lines.subList(from, lines.size())); }
+        synchronized int        lineCount()          { return lines.size(); }
+    }
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        List<String>  expected = Collections.synchronizedList(new ArrayList<>());
+        StandIn       agg      = new StandIn(expected);
+        MetricsPusher pusher   = new MetricsPusher(URI.create("http://127.0.0.1:" + agg.port + "/push"), INSTANCE,
+                                                   () -> metrics(expected), PERIOD_MS, BUFFER);
+        System.out.println("Stand-in aggregator on port " + agg.port);
+
+        // ── Chain ─────────────────────────────────────────────────────────────
+        for (int i = 0; i < 3; i++) pusher.push();
+        List<Line> chain = agg.linesSince(0);
+        check("first three frames sent", chain.size() == 3);
+        check("first frame is full", !chain.isEmpty() && chain.get(0).base == -1);
+        check("each frame is based on the one before", chained(chain));
+        check("every frame rebuilds the pushed JSON", allMatch(chain));
+
+        // ── Outage, aggregator keeps its state ────────────────────────────────
+        agg.kill();
+        for (int i = 0; i < BUFFER + 3; i++) pusher.push();
+        String stats = pusher.toJson();
+        check("send failed while down", PrometheusExporter.number(stats, "failures") >= 1);
+        check("queue capped at bufferFrames", PrometheusExporter.number(stats, "buffered") == BUFFER);
+        check("oldest 3 frames dropped", dropped(pusher) == 3);
+
+        // Each push while waiting out the backoff queues one more, and drops one
+        int mark = agg.lineCount();
+        agg.start();
+        drain(pusher);
+        List<Line> replay   = agg.linesSince(mark);
+        long       firstNew = chain.get(chain.size() - 1).seq + 1 + dropped(pusher);
+        check("replay starts at the oldest kept frame", !replay.isEmpty() && replay.get(0).seq == firstNew);
+        check("replay's first frame is a delta on the last acked",
+              !replay.isEmpty() && replay.get(0).base == chain.get(chain.size() - 1).seq);
+        check("no 409 when the aggregator kept its state", replay.stream().allMatch(Line::applied));
+        check("replay arrives in order", chained(replay));
+        check("every replayed frame rebuilds the pushed JSON", allMatch(replay));
+
+        // ── Outage, aggregator restarts empty ─────────────────────────────────
+        long acked         = replay.isEmpty() ? -1 : replay.get(replay.size() - 1).seq;
+        long droppedBefore = dropped(pusher);
+        agg.kill();
+        agg.forget();
+        for (int i = 0; i < 2; i++) pusher.push();
+        mark = agg.lineCount();
+        agg.start();
+        drain(pusher);
+        List<Line> resend = agg.linesSince(mark);
+        firstNew = acked + 1 + dropped(pusher) - droppedBefore;
+        check("first batch refused with 409", !resend.isEmpty() && !resend.get(0).applied);
+        check("resent from the oldest queued frame, in full",
+              resend.size() > 1 && resend.get(1).seq == firstNew && resend.get(1).base == -1);
+        check("only the first line refused", resend.stream().skip(1).allMatch(Line::applied));
+        check("resend arrives in order", resend.size() > 1 && chained(resend.subList(1, resend.size())));
+        check("every resent frame rebuilds the pushed JSON", allMatch(resend.subList(Math.min(1, resend.size()), resend.size())));
+
+        agg.kill();
+        System.out.println(failures == 0 ? "All checks passed." : failures + " check(s) failed.");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /** Pushes every period until the queue is empty, or fails the run after DRAIN_MS. */
+    private static void drain(MetricsPusher pusher) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DRAIN_MS;
+        do {
+            Thread.sleep(PERIOD_MS);
+            pusher.push();
+        } while (PrometheusExporter.number(pusher.toJson(), "buffered") > 0 && System.currentTimeMillis() < deadline);
+        check("queue drained", PrometheusExporter.number(pusher.toJson(), "buffered") == 0);
+    }
+
+    private static long dropped(MetricsPusher pusher) {
+        return (long) PrometheusExporter.number(pusher.toJson(), "dropped");
+    }
+
+    /** The next metrics JSON: a counter, a constant, a slow gauge and a nested object. */
+    private static String metrics(List<String> expected) {
+        int    n    = expected.size();
+        String json = String.format("{\"instanceId\":\"%s\",\"attempts\":%d,\"nThreads\":4,\"peakWeek\":%d," +
+                                    "\"latency\":{\"p50\":%d,\"p99\":%d}}",
+                                    INSTANCE, 100L * n, n / 3, n % 2, 40 + n);
+        expected.add(json);
+        return json;
+    }
+
+    /** True if every line after the first was applied, and is the next seq based on the one before. */
+    private static boolean chained(List<Line> lines) {
+        for (int i = 1; i < lines.size(); i++) {
+            Line l = lines.get(i);
+            if (!l.applied || l.seq != lines.get(i - 1).seq + 1 || l.base != lines.get(i - 1).seq) return false;
+        }
+        return true;
+    }
+
+    private static boolean allMatch(List<Line> lines) {
+        return !lines.isEmpty() && lines.stream().allMatch(Line::matches);
+    }
+
+    private static void check(String what, boolean ok) {
+        System.out.println((ok ? "  ok    " : "  FAIL  ") + what);
+        if (!ok) failures++;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Metrics Pusher
+ * ==============
+ * Sends this instance's /metrics to an aggregator's /push every periodMs,
+ * over one kept-alive HttpClient connection.
+ *
+ * Each period's metrics are queued as a frame; a POST carries every queued
+ * frame (up to MAX_BATCH), one JSON object per line:
+ *
+ *   {"instanceId":"vm","seq":41,"base":-1,"at":1718000000000,"attempts":812,...}   full
+ *   {"instanceId":"vm","seq":42,"base":41,"at":1718000002000,"attempts":859}        changed fields only
+ *
+ * A frame holds only the fields that changed since frame base, which the
+ * aggregator must already have; the first frame after a success is based
+ * on the last frame the aggregator acknowledged, and the first ever (or any
+ * after a 409, the aggregator's "I do not have base") is full.  The batch
+ * is gzipped: the latency objects change every period, and compress well.
+ *
+ * While the aggregator is unreachable frames stay queued, up to
+ * bufferFrames (the oldest are dropped beyond that), and attempts back off
+ * exponentially, with jitter, from periodMs to MAX_BACKOFF_MS.  On
+ * reconnection the queue is replayed in order, so the aggregator's history
+ * has the outage's points too.  Deltas are encoded at send time, so
+ * dropping a frame never breaks the chain.
+ */
+final class MetricsPusher {
+
+    static final int          MAX_BATCH      = 120;
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    /** One period's metrics: top-level fields as JSON text, instanceId left out. */
+    private record Frame(long seq, long atMs, Map<String, String> fields) {}
+
+    private final URI              aggregator;
+    private final String           instanceId;
+    private final Supplier<String> metricsJson;
+    private final long             periodMs;
+    private final int              bufferFrames;
+    private final HttpClient       client;
+
+    // Pusher thread only
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private Map<String, String>     acked;    // fields of the last acknowledged frame; null: send full
+    private long                    ackedSeq = -1;
+    private long                    nextSeq;
+    private long                    backoffMs;
+    private long                    nextAttemptMs;
+
+    // Read by /metrics
+    private volatile long   framesSent, batchesSent, failures, dropped, bytesSent;
+    private volatile int    buffered;
+    private volatile String lastError;
+
+    MetricsPusher(URI aggregator, String instanceId, Supplier<String> metricsJson, long periodMs, int bufferFrames) {
+        this.aggregator   = aggregator;
+        this.instanceId   = instanceId;
+        this.metricsJson  = metricsJson;
+        this.periodMs     = periodMs;
+        this.bufferFrames = bufferFrames;
+        this.client       = HttpClient.newBuilder()
+                                      .version(HttpClient.Version.HTTP_1_1)
+                                      .connectTimeout(Duration.ofSeconds(3))
+                                      .build();
+    }
+
+    /** Starts queueing and pushing on a daemon thread. */
+    void start() {
+        Thread t = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    push();
+                    Thread.sleep(periodMs);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }, "metrics-push");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * One period's work, on the calling thread: queues a frame of the
+     * current metrics, then sends what backoff allows.  start() calls it
+     * every periodMs; MetricsPushCheck drives it directly.
+     */
+    void push() throws InterruptedException {
+        enqueue(System.currentTimeMillis());
+        drain();
+    }
+
+    private void enqueue(long now) {
+        Map<String, String> fields = MetricsStream.topLevelFields(metricsJson.get());
+        fields.remove("instanceId");
+        queue.addLast(new Frame(nextSeq++, now, fields));
+        while (queue.size() > bufferFrames) {
+            queue.removeFirst();
+            dropped++;
+        }
+        buffered = queue.size();
+    }
+
+    /** Sends batches until the queue is empty, a send fails, or backoff says wait. */
+    private void drain() throws InterruptedException {
+        while (!queue.isEmpty() && System.currentTimeMillis() >= nextAttemptMs) {
+            int    n    = Math.min(queue.size(), MAX_BATCH);
+            byte[] body = gzip(encode(n));
+            int    status;
+            try {
+                HttpResponse<Void> response = client.send(
+                    HttpRequest.newBuilder(aggregator)
+                               .timeout(Duration.ofSeconds(5))
+                               .header("Content-Type", "application/x-ndjson")
+                               .header("Content-Encoding", "gzip")
+                               .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                               .build(),
+                    HttpResponse.BodyHandlers.discarding());
+                status = response.statusCode();
+            } catch (IOException e) {
+                failed(e.getMessage() == null ? e.getClass().getSimpleName()
+                                              : e.getClass().getSimpleName() + ": " + e.getMessage());
+                return;
+            }
+
+            if (status == 409 && acked != null) { // aggregator lost our base: resend in full
+                acked = null;
+                continue;
+            }
+            if (status / 100 != 2) {
+                failed("HTTP " + status);
+                return;
+            }
+            for (int i = 0; i < n; i++) {
+                Frame f  = queue.removeFirst();
+                acked    = f.fields;
+                ackedSeq = f.seq;
+            }
+            framesSent += n;
+            batchesSent++;
+            bytesSent  += body.length;
+            buffered    = queue.size();
+            backoffMs   = 0;
+        }
+    }
+
+    private void failed(String error) {
+        failures++;
+        lastError     = error;
+        backoffMs     = backoffMs == 0 ? periodMs : Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        nextAttemptMs = System.currentTimeMillis() + backoffMs / 2
+                        + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+    }
+
+    /** The first n queued frames, each as a delta on the one before it. */
+    private String encode(int n) {
+        StringBuilder       sb   = new StringBuilder(n * 256);
+        Map<String, String> base = acked;
+        long                seq  = ackedSeq;
+        Iterator<Frame>     it   = queue.iterator();
+        for (int i = 0; i < n; i++) {
+            Frame f = it.next();
+            // A dropped frame between acked and f is fine: f is encoded on acked
+            sb.append("{\"instanceId\":\"").append(instanceId).append("\",\"seq\":").append(f.seq)
+              .append(",\"base\":").append(base == null ? -1 : seq).append(",\"at\":").append(f.atMs);
+            for (Map.Entry<String, String> e : f.fields.entrySet()) {
+                if (base != null && e.getValue().equals(base.get(e.getKey()))) continue;
+                sb.append(",\"").append(e.getKey()).append("\":").append(e.getValue());
+            }
+            sb.append("}\n");
+            base = f.fields;
+            seq  = f.seq;
+        }
+        return sb.toString();
+    }
+
+    private static byte[] gzip(String text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in memory: cannot happen
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Pushing stats, as JSON. */
+    String toJson() {
+        String error = lastError;
+        return String.format("{\"framesSent\":%d,\"batchesSent\":%d,\"bytesSent\":%d,\"failures\":%d," +
+                             "\"buffered\":%d,\"dropped\":%d,\"lastError\":%s}",
+                             framesSent, batchesSent, bytesSent, failures, buffered, dropped,
+                             error == null ? "null" : '"' + error.replace("\\", "\\\\").replace("\"", "\\\"") + '"');
+    }
+
+    // ── Aggregator side ───────────────────────────────────────────────────────
+
+    /** What an aggregator holds for one pushing instance. */
+    static final class Received {
+        final Map<String, String> fields = new LinkedHashMap<>();
+        long                      seq    = -1;
+    }
+
+    /**
+     * Applies one frame line to state, which is null if the instance is
+     * new; returns the updated state, or null if the frame's base is not
+     * the one state holds (answer 409).
+     */
+    static Received apply(Received state, Map<String, String> frame) {
+        long seq  = Long.parseLong(frame.remove("seq"));
+        long base = Long.parseLong(frame.remove("base"));
+        frame.remove("at");
+        if (base >= 0 && (state == null || state.seq != base)) return null;
+        Received next = new Received();
+        if (base >= 0) next.fields.putAll(state.fields);
+        next.fields.putAll(frame);
+        next.seq = seq;
+        return next;
+    }
+
+    /** state's fields as a /metrics JSON object for instance. */
+    static String json(String instance, Received state) {
+        StringBuilder sb = new StringBuilder("{\"instanceId\":\"").append(instance).append('"');
+        for (Map.Entry<String, String> e : state.fields.entrySet())
+            if (!e.getKey().equals("instanceId")) sb.append(",\"").append(e.getKey()).append("\":").append(e.getValue());
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,226 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Metrics Stream
+ * ==============
+ * Server-sent events for /stream: the /all-metrics figures pushed to every
+ * open dashboard, only what changed.  One thread builds a tick every
+ * periodMs — the instances' JSON fetched and compared once, the delta
+ * serialized once — and every subscriber is sent the same bytes.  With no
+ * subscribers nothing is built.
+ *
+ *   event: snapshot   data: {"<instance>":{...metrics...},...}   as /all-metrics
+ *   event: delta      data: {"changed":{"<instance>":{"attempts":…}},"removed":["<instance>"]}
+ *
+ * A new subscriber gets a snapshot, then deltas.  Each subscriber is
+ * written from its own virtual thread, so a slow one holds up only
+ * itself; one that missed ticks meanwhile gets a fresh snapshot (built at
+ * most once per tick) instead of the deltas it missed.  A comment line
+ * every KEEPALIVE_MS keeps proxies from closing a quiet stream.
+ */
+final class MetricsStream {
+
+    static final String CONTENT_TYPE = "text/event-stream; charset=utf-8";
+
+    private static final long   KEEPALIVE_MS = 15_000;
+    private static final byte[] KEEPALIVE    = ": keepalive\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RETRY        = "retry: 2000\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /** One build: every instance's JSON and top-level fields, and the delta from the tick before. */
+    private static final class Tick {
+        final long                             seq;
+        final Map<String, String>              json;   // instance → its /metrics JSON
+        final Map<String, Map<String, String>> fields; // instance → field → JSON value
+        final byte[]                           delta;  // null if nothing changed
+        private byte[]                         snapshot;
+
+        Tick(long seq, Map<String, String> json, Map<String, Map<String, String>> fields, byte[] delta) {
+            this.seq    = seq;
+            this.json   = json;
+            this.fields = fields;
+            this.delta  = delta;
+        }
+
+        synchronized byte[] snapshot() {
+            if (snapshot == null) {
+                StringBuilder sb    = new StringBuilder("{");
+                boolean       first = true;
+                for (Map.Entry<String, String> e : json.entrySet()) {
+                    sb.append(first ? "" : ",").append('"').append(e.getKey()).append("\":").append(e.getValue());
+                    first = false;
+                }
+                snapshot = event(seq, "snapshot", sb.append('}').toString());
+            }
+            return snapshot;
+        }
+    }
+
+    private final Supplier<Map<String, String>> source;
+    private final long                          periodMs;
+    private final int                           maxSubscribers;
+    private final AtomicInteger                 subscribers = new AtomicInteger();
+    private long                                seq;     // stream thread only
+    private Tick                                current; // guarded by this
+
+    /** source: every live instance's /metrics JSON by instance id, this one first. */
+    MetricsStream(Supplier<Map<String, String>> source, long periodMs, int maxSubscribers) {
+        this.source         = source;
+        this.periodMs       = periodMs;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    int subscribers() { return subscribers.get(); }
+
+    /** Starts building ticks on a daemon thread. */
+    void start() {
+        Thread t = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try { Thread.sleep(periodMs); } catch (InterruptedException e) { break; }
+                Tick previous;
+                synchronized (this) { previous = current; }
+                Tick next = subscribers.get() == 0 ? null : build(previous);
+                synchronized (this) {
+                    current = next;
+                    notifyAll();
+                }
+            }
+        }, "metrics-stream");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Opens exchange as an event stream and serves it until the client goes
+     * away.  False, with nothing sent, if maxSubscribers are connected.
+     */
+    boolean subscribe(HttpExchange exchange) throws IOException {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            return false;
+        }
+        exchange.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+        exchange.sendResponseHeaders(200, 0);
+        Thread.ofVirtual().name("stream-subscriber").start(() -> serve(exchange));
+        return true;
+    }
+
+    private void serve(HttpExchange exchange) {
+        try (exchange; OutputStream os = exchange.getResponseBody()) {
+            os.write(RETRY);
+            os.flush();
+            long sent      = -1; // seq of the last tick sent
+            long lastWrite = System.currentTimeMillis();
+            while (true) {
+                Tick   tick    = await(sent, lastWrite + KEEPALIVE_MS);
+                byte[] payload = null;
+                if (tick != null) {
+                    payload = sent >= 0 && tick.seq == sent + 1 ? tick.delta : tick.snapshot();
+                    sent    = tick.seq;
+                }
+                long now = System.currentTimeMillis();
+                if (payload == null) {
+                    if (now - lastWrite < KEEPALIVE_MS) continue;
+                    payload = KEEPALIVE;
+                }
+                os.write(payload);
+                os.flush();
+                lastWrite = now;
+            }
+        } catch (IOException | InterruptedException e) {
+            // client gone, or shutting down
+        } finally {
+            subscribers.decrementAndGet();
+        }
+    }
+
+    /** The current tick once it is newer than sent, or null at deadline. */
+    private synchronized Tick await(long sent, long deadline) throws InterruptedException {
+        while (current == null || current.seq <= sent) {
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) return null;
+            wait(wait);
+        }
+        return current;
+    }
+
+    // ── Building ──────────────────────────────────────────────────────────────
+
+    private Tick build(Tick previous) {
+        Map<String, String>              json   = source.get();
+        Map<String, Map<String, String>> fields = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : json.entrySet()) fields.put(e.getKey(), topLevelFields(e.getValue()));
+        long next = ++seq;
+        if (previous == null) return new Tick(next, json, fields, null);
+
+        StringBuilder changed = new StringBuilder();
+        for (Map.Entry<String, Map<String, String>> e : fields.entrySet()) {
+            Map<String, String> before = previous.fields.getOrDefault(e.getKey(), Map.of());
+            StringBuilder       diff   = new StringBuilder();
+            for (Map.Entry<String, String> f : e.getValue().entrySet()) {
+                if (f.getValue().equals(before.get(f.getKey()))) continue;
+                diff.append(diff.isEmpty() ? "" : ",").append('"').append(f.getKey()).append("\":").append(f.getValue());
+            }
+            if (diff.isEmpty()) continue;
+            changed.append(changed.isEmpty() ? "" : ",").append('"').append(e.getKey()).append("\":{").append(diff).append('}');
+        }
+        List<String> removed = new ArrayList<>();
+        for (String id : previous.fields.keySet()) if (!fields.containsKey(id)) removed.add('"' + id + '"');
+
+        byte[] delta = changed.isEmpty() && removed.isEmpty() ? null
+                     : event(next, "delta", "{\"changed\":{" + changed + "},\"removed\":[" + String.join(",", removed) + "]}");
+        return new Tick(next, json, fields, delta);
+    }
+
+    private static byte[] event(long id, String type, String data) {
+        return ("id: " + id + "\nevent: " + type + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** The top-level fields of a JSON object, each value as its JSON text. */
+    static Map<String, String> topLevelFields(String json) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        int i = json.indexOf('{') + 1;
+        while (i > 0 && i < json.length()) {
+            int keyStart = json.indexOf('"', i);
+            if (keyStart < 0) break;
+            int keyEnd = json.indexOf('"', keyStart + 1);
+            int colon  = json.indexOf(':', keyEnd);
+            if (keyEnd < 0 || colon < 0) break;
+
+            // The value runs to the first comma or closing brace outside any
+            // nested object, array or string
+            int     end      = colon + 1, depth = 0;
+            boolean inString = false;
+            for (; end < json.length(); end++) {
+                char c = json.charAt(end);
+                if (inString) {
+                    if (c == '\\') end++;
+                    else if (c == '"') inString = false;
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (depth-- == 0) break;
+                } else if (c == ',' && depth == 0) {
+                    break;
+                }
+            }
+            fields.put(json.substring(keyStart + 1, keyEnd), json.substring(colon + 1, end).trim());
+            i = end + 1;
+        }
+        return fields;
+    }
+}
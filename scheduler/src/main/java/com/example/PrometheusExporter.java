@@ -0,0 +1,220 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Prometheus Exporter
+ * ===================
+ * The /metrics figures in the Prometheus text exposition format, for
+ * /prometheus.  A daemon thread rebuilds the whole page every periodMs;
+ * a scrape only hands out the last page, so scraping as often as you like
+ * never reads a counter or merges a histogram.
+ *
+ * Counters and gauges come from the /metrics JSON — this instance's and
+ * every pushed instance heard from in the last PUSH_TTL_MS — so each
+ * sample carries an instance_id label and all instances share one family.
+ * A field an instance's JSON lacks (an older build) is left out for it.
+ * The latency histograms are this instance's own, cumulative over the
+ * run; their counts are of samples (see LatencyHistogram).
+ *
+ *   scheduler_attempts_total{instance_id="node-1"} 184302
+ *   scheduler_latency_seconds_bucket{instance_id="node-1",interval="week",le="0.001"} 9120
+ */
+final class PrometheusExporter {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /** Pushed instances older than this are left out, as on /all-metrics. */
+    static final long PUSH_TTL_MS = 10_000;
+
+    /** One /metrics field exported as a counter or gauge. */
+    private record Metric(String name, String type, String field, double divisor, String help) {}
+
+    private static final Metric[] METRICS = {
+        new Metric("scheduler_attempts_total",               "counter", "attempts",          1,   "Search-loop passes."),
+        new Metric("scheduler_solutions_found_total",        "counter", "solutionsFound",    1,   "Full schedules the search found."),
+        new Metric("scheduler_solutions_saved_total",        "counter", "solutions",         1,   "Schedules saved after scoring and dedup."),
+        new Metric("scheduler_venue_checked_total",          "counter", "venueChecked",      1,   "Schedules screened for venue reachability."),
+        new Metric("scheduler_venue_rejected_total",         "counter", "venueRejected",     1,   "Schedules rejected by the venue screen."),
+        new Metric("scheduler_repair_tried_total",           "counter", "repairTried",       1,   "Near misses given a tabu repair."),
+        new Metric("scheduler_repair_promoted_total",        "counter", "repairPromoted",    1,   "Repairs that reached the venue targets."),
+        new Metric("scheduler_pipeline_stalls_total",        "counter", "pipelineStalls",    1,   "Hand-offs that blocked on a full queue."),
+        new Metric("scheduler_pipeline_stall_seconds_total", "counter", "pipelineStallMs",   1e3, "Time blocked on full queues."),
+        new Metric("scheduler_duplicates_total",             "counter", "duplicatesThisRun", 1,   "Schedules dropped as duplicates of this run's."),
+        new Metric("scheduler_duplicates_earlier_total",     "counter", "duplicatesEarlier", 1,   "Schedules dropped as duplicates of earlier runs'."),
+        new Metric("scheduler_top_evicted_total",            "counter", "topEvicted",        1,   "Schedules evicted from the top-K."),
+        new Metric("scheduler_worker_cpu_seconds_total",     "counter", "cpuMs",             1e3, "CPU time used by the search workers."),
+        new Metric("scheduler_worker_allocated_bytes_total", "counter", "allocBytes",        1,   "Heap bytes allocated by the search workers."),
+        new Metric("scheduler_uptime_seconds",               "gauge",   "elapsedMs",         1e3, "Time since the instance started."),
+        new Metric("scheduler_since_last_solution_seconds",  "gauge",   "sinceLastSolMs",    1e3, "Time since the last saved schedule."),
+        new Metric("scheduler_threads",                      "gauge",   "nThreads",          1,   "Search worker threads."),
+        new Metric("scheduler_weeks",                        "gauge",   "totalWeeks",        1,   "Weeks in a full schedule."),
+        new Metric("scheduler_peak_week",                    "gauge",   "peakWeek",          1,   "Furthest week any attempt has reached."),
+        new Metric("scheduler_score_queue_depth",            "gauge",   "scoreQueue",        1,   "Schedules waiting to be scored."),
+        new Metric("scheduler_write_queue_depth",            "gauge",   "writeQueue",        1,   "Schedules waiting to be written."),
+        new Metric("scheduler_top_size",                     "gauge",   "topSize",           1,   "Schedules in the top-K."),
+    };
+
+    // Histogram bucket bounds: 1-2.5-5 per decade, 1 us to 10 s
+    private static final double[] BOUNDS_SECONDS = new double[22];
+    static {
+        double[] steps = {1, 2.5, 5};
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            int decade = i / 3 - 6;
+            BOUNDS_SECONDS[i] = decade < 0 ? steps[i % 3] / Math.pow(10, -decade) : steps[i % 3] * Math.pow(10, decade);
+        }
+    }
+
+    private final Supplier<String>              localJson;
+    private final Supplier<Map<String, String>> pushedJson;
+    private final Map<String, LatencyHistogram> histograms;
+    private final long                          periodMs;
+    private volatile byte[]                     page = new byte[0];
+
+    /**
+     * localJson: this instance's /metrics JSON.  pushedJson: the live pushed
+     * instances' JSON by instance id.  histograms: this instance's latency
+     * histograms by interval label.
+     */
+    PrometheusExporter(Supplier<String> localJson, Supplier<Map<String, String>> pushedJson,
+                       Map<String, LatencyHistogram> histograms, long periodMs) {
+        this.localJson  = localJson;
+        this.pushedJson = pushedJson;
+        this.histograms = histograms;
+        this.periodMs   = periodMs;
+    }
+
+    /** Builds the first page now, then keeps it fresh from a daemon thread. */
+    void start() {
+        refresh();
+        Thread t = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try { Thread.sleep(periodMs); } catch (InterruptedException e) { break; }
+                refresh();
+            }
+        }, "prometheus");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** The last page built, UTF-8. */
+    byte[] page() { return page; }
+
+    private void refresh() {
+        page = render().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // ── Rendering ─────────────────────────────────────────────────────────────
+
+    private String render() {
+        String              local     = localJson.get();
+        String              localId   = string(local, "instanceId");
+        Map<String, String> instances = new LinkedHashMap<>();
+        instances.put(localId, local);
+        pushedJson.get().forEach(instances::putIfAbsent);
+
+        StringBuilder sb = new StringBuilder(16 * 1024);
+        for (Metric m : METRICS) {
+            family(sb, m.name, m.type, m.help);
+            for (Map.Entry<String, String> e : instances.entrySet()) {
+                double v = number(e.getValue(), m.field);
+                if (!Double.isNaN(v)) sample(sb, m.name, label("instance_id", e.getKey()), v / m.divisor);
+            }
+        }
+
+        family(sb, "scheduler_thread_week", "gauge", "Week the worker's current attempt is building, from 1.");
+        for (Map.Entry<String, String> e : instances.entrySet()) {
+            double[] weeks = numbers(e.getValue(), "threadWeeks");
+            for (int t = 0; t < weeks.length; t++)
+                sample(sb, "scheduler_thread_week",
+                       label("instance_id", e.getKey()) + "," + label("thread", String.valueOf(t)), weeks[t]);
+        }
+
+        family(sb, "scheduler_thread_cpu_seconds_total", "counter", "CPU time used by each search worker.");
+        for (Map.Entry<String, String> e : instances.entrySet()) {
+            double[] cpuMs = numbers(e.getValue(), "workerCpuMs");
+            for (int t = 0; t < cpuMs.length; t++)
+                sample(sb, "scheduler_thread_cpu_seconds_total",
+                       label("instance_id", e.getKey()) + "," + label("thread", String.valueOf(t)), cpuMs[t] / 1e3);
+        }
+
+        family(sb, "scheduler_latency_seconds", "histogram",
+               "Search and scoring intervals; counts are of sampled intervals.");
+        for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet())
+            histogram(sb, "scheduler_latency_seconds",
+                      label("instance_id", localId) + "," + label("interval", e.getKey()), e.getValue().snapshot());
+
+        return sb.toString();
+    }
+
+    private static void family(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name).append('{').append(labels).append("} ").append(format(value)).append('\n');
+    }
+
+    /** Cumulative buckets at BOUNDS_SECONDS, then +Inf, _sum and _count. */
+    private static void histogram(StringBuilder sb, String name, String labels, LatencyHistogram.Snapshot s) {
+        for (double le : BOUNDS_SECONDS)
+            sample(sb, name + "_bucket", labels + "," + label("le", format(le)), s.countAtMost(le * 1e9));
+        sample(sb, name + "_bucket", labels + "," + label("le", "+Inf"), s.samples);
+        sample(sb, name + "_sum",    labels, s.sum() / 1e9);
+        sample(sb, name + "_count",  labels, s.samples);
+    }
+
+    private static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+    }
+
+    private static String format(double v) {
+        if (v == Math.rint(v) && Math.abs(v) < 1e15) return Long.toString((long) v);
+        return Double.toString(v);
+    }
+
+    // ── JSON fields ───────────────────────────────────────────────────────────
+
+    /** The string in "field":"s" of json, "unknown" if absent. */
+    static String string(String json, String field) {
+        String key   = "\"" + field + "\":\"";
+        int    start = json.indexOf(key);
+        if (start < 0) return "unknown";
+        start += key.length();
+        int end = json.indexOf('"', start);
+        return end < 0 ? "unknown" : json.substring(start, end);
+    }
+
+    /** The number in "field":n of json, NaN if absent or null. */
+    static double number(String json, String field) {
+        String key   = "\"" + field + "\":";
+        int    start = json.indexOf(key);
+        if (start < 0) return Double.NaN;
+        start += key.length();
+        int end = start;
+        while (end < json.length() && "+-.0123456789eE".indexOf(json.charAt(end)) >= 0) end++;
+        try { return Double.parseDouble(json.substring(start, end)); }
+        catch (NumberFormatException e) { return Double.NaN; }
+    }
+
+    /** The numbers in "field":[a,b,...] of json, empty if absent. */
+    static double[] numbers(String json, String field) {
+        String key   = "\"" + field + "\":[";
+        int    start = json.indexOf(key);
+        if (start < 0) return new double[0];
+        start += key.length();
+        int end = json.indexOf(']', start);
+        if (end <= start) return new double[0];
+        String[] parts  = json.substring(start, end).split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try { values[i] = Double.parseDouble(parts[i].trim()); }
+            catch (NumberFormatException e) { values[i] = Double.NaN; }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Schedule Renderer
+ * =================
+ * Renders a solved schedule file — the match matrix, the week-by-week match
+ * list and the per-team Main/BP/Gerry court counts — into a StringBuilder.
+ * Padding is hand-rolled over StringBuilder.append(int), so no format
+ * strings are parsed and nothing is boxed.  Nothing here touches
+ * System.out: any number of threads can render at once, and a file is one
+ * buffer and one write.
+ *
+ * The text is byte-for-byte what printMatrix(), printMatches() and the
+ * drivers' printCourtCounts() used to print into a redirected System.out.
+ */
+final class ScheduleRenderer {
+
+    static final String NL = System.lineSeparator();
+
+    // One reusable buffer per rendering thread; a 16-team file is ~6 KB.
+    private static final ThreadLocal<StringBuilder> BUFFER =
+        ThreadLocal.withInitial(() -> new StringBuilder(8192));
+
+    private ScheduleRenderer() {}
+
+    /** The complete schedule file for matches, encoded like System.out. */
+    static byte[] render(MatchMatrix matches) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        matches.appendMatrix(out);
+        matches.appendMatches(out);
+        appendCourtCounts(matches, out);
+        return out.toString().getBytes();
+    }
+
+    /** Renders matches and writes it to filename in a single write. */
+    static void write(MatchMatrix matches, String filename) throws IOException {
+        byte[] bytes = render(matches);
+        try (OutputStream fileOut = new FileOutputStream(filename)) {
+            fileOut.write(bytes);
+        }
+    }
+
+    // ── Court count summary ───────────────────────────────────────────────────
+
+    static void appendCourtCounts(MatchMatrix matches, StringBuilder out) {
+
+        int     nTeams      = MatchMatrix.MATCHES_PER_WEEK;
+        int[][] groups      = Config.getScheduleGroups();
+        int     mainCourts  = Config.getMainCourts();
+        int     bpCourts    = Config.getBpCourts();
+        int     gerryCourts = Config.getGerryCourts();
+
+        int mainStart  = 0;
+        int mainEnd    = mainCourts - 1;
+        int bpStart    = mainCourts;
+        int bpEnd      = mainCourts + bpCourts - 1;
+        int gerryStart = mainCourts + bpCourts;
+        int gerryEnd   = mainCourts + bpCourts + gerryCourts - 1;
+
+        int[] main  = new int[nTeams + 1];
+        int[] bp    = new int[nTeams + 1];
+        int[] gerry = new int[nTeams + 1];
+
+        for (int[] week : matches.weekView()) {
+            for (int[] group : groups) {
+                for (int j = 0; j < group.length; j++) {
+                    if (week[2 * group[j]] < 0) continue;
+
+                    int t1 = week[2 * group[j]] + 1;
+                    int t2 = week[2 * group[j] + 1] + 1;
+
+                    if      (j >= mainStart  && j <= mainEnd)  { main[t1]++;  main[t2]++;  }
+                    else if (j >= bpStart    && j <= bpEnd)    { bp[t1]++;    bp[t2]++;    }
+                    else if (j >= gerryStart && j <= gerryEnd) { gerry[t1]++; gerry[t2]++; }
+                }
+            }
+        }
+
+        out.append(NL);
+        out.append("     ");
+        padRight(out, "Main", 6);
+        padRight(out, "BP", 4);
+        padRight(out, "Gerry", 6);
+        out.append(NL);
+        for (int t = 1; t <= nTeams; t++) {
+            out.append('T');
+            padRight(out, t, 2);
+            out.append("  ");
+            padLeft(out, main[t], 6);
+            padLeft(out, bp[t], 4);
+            padLeft(out, gerry[t], 6);
+            out.append(NL);
+        }
+    }
+
+    // ── Padding ───────────────────────────────────────────────────────────────
+
+    /** Appends value right-aligned in width columns, like %{width}d. */
+    static void padLeft(StringBuilder out, int value, int width) {
+        for (int i = width - digits(value); i > 0; i--) out.append(' ');
+        out.append(value);
+    }
+
+    /** Appends value left-aligned in width columns, like %-{width}d. */
+    static void padRight(StringBuilder out, int value, int width) {
+        int start = out.length();
+        out.append(value);
+        while (out.length() - start < width) out.append(' ');
+    }
+
+    /** Appends s left-aligned in width columns, like %-{width}s. */
+    static void padRight(StringBuilder out, String s, int width) {
+        out.append(s);
+        for (int i = width - s.length(); i > 0; i--) out.append(' ');
+    }
+
+    private static int digits(int value) {
+        int n = value < 0 ? 2 : 1;
+        for (int v = Math.abs(value); v >= 10; v /= 10) n++;
+        return n;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Scheduler Events
+ * ================
+ * JDK Flight Recorder events for the search and the solution pipeline, so
+ * a recording can line CPU samples and GC pauses up with attempts, weeks
+ * and venue solves.  JfrSummary turns a recording into time breakdowns.
+ *
+ *   com.example.Attempt        one pass of the search loop      duration
+ *   com.example.Week           one week built, restarts incl.   duration
+ *   com.example.Phase1         one court group's random fill    duration, off by default
+ *   com.example.Phase2         one court group's DP matching    duration, off by default
+ *   com.example.Phase2Failure  no valid pairing — week restarts instant
+ *   com.example.SolutionFound  a full schedule handed off       instant
+ *   com.example.VenueSolve     VenueOptimizer / VenueRepair     duration
+ *   com.example.SolutionWrite  one writer batch                 duration
+ *
+ * None records a stack trace.  With no recording running, begin(), end()
+ * and shouldCommit() cost next to nothing; fields are only filled once
+ * shouldCommit() says the event will be kept.  Duration events keep every
+ * interval by default; a recording can raise a threshold to keep only the
+ * slow ones.  Phase1 and Phase2 run tens of thousands of times a second
+ * and are off unless a recording turns them on, e.g.
+ *
+ *   -XX:StartFlightRecording=filename=run.jfr,settings=profile,
+ *       +com.example.Phase1#enabled=true,+com.example.Phase2#enabled=true,
+ *       +com.example.Week#threshold=1ms
+ */
+final class SchedulerEvents {
+
+    private SchedulerEvents() {}
+
+    @Name("com.example.Attempt")
+    @Label("Attempt")
+    @Category("Scheduler")
+    @Description("One pass of the search loop, from an empty schedule to a full one or a cutoff")
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class Attempt extends Event {
+        @Label("Thread")          int     threadId;
+        @Label("Weeks Completed") int     weeksCompleted;
+        @Label("Complete")        boolean complete;
+    }
+
+    @Name("com.example.Week")
+    @Label("Week")
+    @Category("Scheduler")
+    @Description("One week of an attempt built, including the restarts it took")
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class Week extends Event {
+        @Label("Week")     int week; // from 1
+        @Label("Restarts") int restarts;
+    }
+
+    @Name("com.example.Phase1")
+    @Label("Phase 1")
+    @Category("Scheduler")
+    @Description("Random fill of one court group's match slots")
+    @StackTrace(false)
+    @Enabled(false)
+    @Threshold("0 ms")
+    static final class Phase1 extends Event {
+        @Label("Week")   int     week;
+        @Label("Group")  int     group;
+        @Label("Draws")  long    draws;
+        @Label("Cutoff") boolean cutoff; // the draw limit hit: the attempt ends
+    }
+
+    @Name("com.example.Phase2")
+    @Label("Phase 2")
+    @Category("Scheduler")
+    @Description("Bitmask DP matching of one court group's Phase 1 teams")
+    @StackTrace(false)
+    @Enabled(false)
+    @Threshold("0 ms")
+    static final class Phase2 extends Event {
+        @Label("Week")  int     week;
+        @Label("Group") int     group;
+        @Label("Found") boolean found;
+    }
+
+    @Name("com.example.Phase2Failure")
+    @Label("Phase 2 Failure")
+    @Category("Scheduler")
+    @Description("No valid pairing for a court group: the week restarts, or the attempt ends if Give Up")
+    @StackTrace(false)
+    static final class Phase2Failure extends Event {
+        @Label("Week")    int     week;
+        @Label("Group")   int     group;
+        @Label("Give Up") boolean giveUp;
+    }
+
+    @Name("com.example.SolutionFound")
+    @Label("Solution Found")
+    @Category("Scheduler")
+    @StackTrace(false)
+    static final class SolutionFound extends Event {
+        @Label("Thread")   int threadId;
+        @Label("Solution") int solutionNum;
+    }
+
+    @Name("com.example.VenueSolve")
+    @Label("Venue Solve")
+    @Category("Scheduler")
+    @Description("Venue optimization of a finished schedule, or a tabu repair of a near miss")
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class VenueSolve extends Event {
+        @Label("Repair")         boolean repair;
+        @Label("Teams In Range") int     teamsInRange; // -1 if none found
+        @Label("Score")          double  score;
+    }
+
+    @Name("com.example.SolutionWrite")
+    @Label("Solution Write")
+    @Category("Scheduler")
+    @Description("One writer batch: solution log append and flush, text files")
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class SolutionWrite extends Event {
+        @Label("Schedules")  int     schedules;
+        @Label("Text Files") boolean textFiles;
+    }
+}
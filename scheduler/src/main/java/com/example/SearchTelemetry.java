@@ -0,0 +1,221 @@
+package com.example;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Search Telemetry
+ * ================
+ * Where the randomized search spends its attempts and where they die,
+ * recorded by every engine and kept for the whole run:
+ *
+ *   - attempts by the number of weeks they completed (WEEKS = a full
+ *     schedule); the rest died building the next week
+ *   - per week and court group:
+ *       Phase 1  calls, random draws, matches placed, cutoffs (the draw
+ *                limit hit — the attempt is abandoned)
+ *       Phase 2  calls, failures (no valid pairing of the Phase 1 teams —
+ *                the week restarts from group 0), cutoffs (the restart
+ *                limit hit — the attempt is abandoned)
+ *
+ * Derived in the JSON: how many attempts entered and survived each week,
+ * Phase 1 draws per placed match, Phase 2 failure rate, restarts per
+ * completed week, and the week and group that ended the most attempts.
+ * Arrays are indexed [week][group] from 0; the bottleneck's week is
+ * numbered from 1, as on the console (W1, G0).
+ *
+ * Each search thread records into its own Recorder (owner-only writes,
+ * opaque, as in LatencyHistogram); readers merge them all.  Calls are
+ * recorded once per phase, not per draw.
+ */
+final class SearchTelemetry {
+
+    static final String FILE = "search_telemetry.json";
+
+    // Counter kinds, each a [week][group] block
+    private static final int P1_CALLS   = 0;
+    private static final int P1_DRAWS   = 1;
+    private static final int P1_PLACED  = 2;
+    private static final int P1_CUTOFFS = 3;
+    private static final int P2_CALLS   = 4;
+    private static final int P2_FAILS   = 5;
+    private static final int P2_CUTOFFS = 6;
+    private static final int KINDS      = 7;
+
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final String         engine;
+    private final int            nWeeks, nGroups;
+    private final List<Recorder> recorders = new CopyOnWriteArrayList<>();
+
+    SearchTelemetry(String engine) {
+        this.engine  = engine;
+        this.nWeeks  = Config.getWeeks();
+        this.nGroups = Config.getCourtGroups().size();
+    }
+
+    /** One search thread's counters.  Only that thread may record into it. */
+    final class Recorder {
+        // KINDS × [week][group] blocks, then attempts by weeks completed 0..nWeeks
+        private final long[] counts = new long[KINDS * nWeeks * nGroups + nWeeks + 1];
+
+        /** Phase 1 for group of week: draws made and matches placed; cutoff if it gave up. */
+        void phase1(int week, int group, long draws, int placed, boolean cutoff) {
+            add(P1_CALLS,  week, group, 1);
+            add(P1_DRAWS,  week, group, draws);
+            add(P1_PLACED, week, group, placed);
+            if (cutoff) add(P1_CUTOFFS, week, group, 1);
+        }
+
+        /** Phase 2 for group of week: found or not; cutoff if that failure abandoned the attempt. */
+        void phase2(int week, int group, boolean found, boolean cutoff) {
+            add(P2_CALLS, week, group, 1);
+            if (!found) add(P2_FAILS,   week, group, 1);
+            if (cutoff) add(P2_CUTOFFS, week, group, 1);
+        }
+
+        /** An attempt ended with weeksCompleted whole weeks (nWeeks: a full schedule). */
+        void attemptEnded(int weeksCompleted) {
+            bump(KINDS * nWeeks * nGroups + weeksCompleted, 1);
+        }
+
+        private void add(int kind, int week, int group, long delta) {
+            bump((kind * nWeeks + week) * nGroups + group, delta);
+        }
+
+        private void bump(int i, long delta) {
+            COUNTS.setOpaque(counts, i, counts[i] + delta);
+        }
+    }
+
+    /** A new Recorder for the calling thread to keep. */
+    Recorder recorder() {
+        Recorder r = new Recorder();
+        recorders.add(r);
+        return r;
+    }
+
+    // ── Reading ───────────────────────────────────────────────────────────────
+
+    private long[] merged() {
+        long[] total = null;
+        for (Recorder r : recorders) {
+            if (total == null) total = new long[r.counts.length];
+            for (int i = 0; i < total.length; i++) total[i] += (long) COUNTS.getOpaque(r.counts, i);
+        }
+        return total != null ? total : new long[KINDS * nWeeks * nGroups + nWeeks + 1];
+    }
+
+    /** The telemetry so far, as JSON. */
+    String toJson() {
+        long[] c        = merged();
+        int    tail     = KINDS * nWeeks * nGroups;
+        long[] ended    = new long[nWeeks + 1]; // attempts by weeks completed
+        long   attempts = 0;
+        for (int k = 0; k <= nWeeks; k++) attempts += ended[k] = c[tail + k];
+
+        // entered[w]: attempts that started week w; survived[w]: ... and completed it
+        long[] entered  = new long[nWeeks];
+        long[] survived = new long[nWeeks];
+        for (int w = 0; w < nWeeks; w++) {
+            long atLeast = 0;
+            for (int k = w; k <= nWeeks; k++) atLeast += ended[k];
+            entered[w]  = atLeast;
+            survived[w] = atLeast - ended[w];
+        }
+
+        // The week and group whose cutoffs ended the most attempts
+        int  worstWeek = -1, worstGroup = -1;
+        long worstEnds = 0;
+        for (int w = 0; w < nWeeks; w++)
+            for (int g = 0; g < nGroups; g++) {
+                long ends = c[at(P1_CUTOFFS, w, g)] + c[at(P2_CUTOFFS, w, g)];
+                if (ends > worstEnds) { worstEnds = ends; worstWeek = w; worstGroup = g; }
+            }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("{\"engine\":\"%s\",\"weeks\":%d,\"groups\":%d,\"attempts\":%d,\"completed\":%d,",
+                                engine, nWeeks, nGroups, attempts, ended[nWeeks]));
+        sb.append("\"endedAfterWeeks\":").append(array(ended)).append(',');
+        sb.append("\"enteredWeek\":").append(array(entered)).append(',');
+        sb.append("\"survivedWeek\":").append(array(survived)).append(',');
+
+        double[] restarts = new double[nWeeks];
+        for (int w = 0; w < nWeeks; w++) {
+            long fails = 0;
+            for (int g = 0; g < nGroups; g++) fails += c[at(P2_FAILS, w, g)];
+            restarts[w] = survived[w] > 0 ? (double) fails / survived[w] : 0;
+        }
+        sb.append("\"restartsPerCompletedWeek\":").append(array(restarts)).append(',');
+
+        sb.append("\"phase1Calls\":").append(grid(c, P1_CALLS)).append(',');
+        sb.append("\"phase1Cutoffs\":").append(grid(c, P1_CUTOFFS)).append(',');
+        sb.append("\"phase1DrawsPerMatch\":").append(ratio(c, P1_DRAWS, P1_PLACED)).append(',');
+        sb.append("\"phase2Calls\":").append(grid(c, P2_CALLS)).append(',');
+        sb.append("\"phase2Failures\":").append(grid(c, P2_FAILS)).append(',');
+        sb.append("\"phase2Cutoffs\":").append(grid(c, P2_CUTOFFS)).append(',');
+        sb.append("\"phase2FailureRate\":").append(ratio(c, P2_FAILS, P2_CALLS)).append(',');
+        sb.append("\"bottleneck\":");
+        if (worstEnds == 0) sb.append("null");
+        else sb.append(String.format("{\"week\":%d,\"group\":%d,\"attemptsEnded\":%d,\"share\":%.4f}",
+                                     worstWeek + 1, worstGroup, worstEnds, (double) worstEnds / attempts));
+        return sb.append('}').toString();
+    }
+
+    /** Writes toJson() to file, replacing it. */
+    void save(Path file) throws IOException {
+        Files.writeString(file, toJson());
+    }
+
+    private int at(int kind, int week, int group) {
+        return (kind * nWeeks + week) * nGroups + group;
+    }
+
+    /** kind as weeks × groups. */
+    private String grid(long[] c, int kind) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int w = 0; w < nWeeks; w++) {
+            if (w > 0) sb.append(',');
+            sb.append('[');
+            for (int g = 0; g < nGroups; g++) {
+                if (g > 0) sb.append(',');
+                sb.append(c[at(kind, w, g)]);
+            }
+            sb.append(']');
+        }
+        return sb.append(']').toString();
+    }
+
+    /** num / den per week and group, 0 where den is. */
+    private String ratio(long[] c, int num, int den) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int w = 0; w < nWeeks; w++) {
+            if (w > 0) sb.append(',');
+            sb.append('[');
+            for (int g = 0; g < nGroups; g++) {
+                if (g > 0) sb.append(',');
+                long d = c[at(den, w, g)];
+                sb.append(String.format("%.4f", d > 0 ? (double) c[at(num, w, g)] / d : 0.0));
+            }
+            sb.append(']');
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String array(long[] a) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < a.length; i++) sb.append(i > 0 ? "," : "").append(a[i]);
+        return sb.append(']').toString();
+    }
+
+    private static String array(double[] a) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < a.length; i++) sb.append(i > 0 ? "," : "").append(String.format("%.4f", a[i]));
+        return sb.append(']').toString();
+    }
+}
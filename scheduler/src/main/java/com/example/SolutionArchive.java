@@ -0,0 +1,341 @@
+package com.example;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Solution Archive
+ * ================
+ * Read-only view of a SolutionLog for queries.  Every segment is memory-
+ * mapped through the FFM API and fields are read straight out of the
+ * mapping, so a scan over millions of schedules parses nothing and copies
+ * only the bytes a query looks at.
+ *
+ * Records are numbered 0..size()-1 in log order.  Opening an archive checks
+ * every record's CRC in parallel — a torn tail ends its segment, as for
+ * SolutionLog.read — and builds three indexes:
+ *
+ *   - by score:          ids best (lowest) score first, unscored last
+ *   - by teams in range: ids per teamsInRange value
+ *   - venue counts:      games per team per venue for every record,
+ *                        recomputed from the logged venue choices into a
+ *                        byte column, so count filters never touch the
+ *                        mapping
+ *
+ * Queries are IntPredicates over record ids, run as parallel scans of the
+ * whole archive or of an index's candidates.  Teams and venues are 0-based:
+ *
+ *   // every team in range, and team 3 never at Gerry two weeks running
+ *   int[] ids = archive.select(archive.withTeamsInRange(Config.getTeams()),
+ *                              id -> archive.longestRun(id, 2, gerry) < 2);
+ *
+ * The mappings live until close().
+ */
+final class SolutionArchive implements AutoCloseable {
+
+    private static final ValueLayout.OfByte   BYTE   = ValueLayout.JAVA_BYTE;
+    private static final ValueLayout.OfShort  SHORT  = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt    INT    = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong   LONG   = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    // SLOT_VENUE[ai][slot] → venue of a week's slot under assignment ai
+    private static final int[][] SLOT_VENUE;
+
+    static {
+        int[] column = new int[MatchMatrix.MATCHES_PER_WEEK]; // [slot] → schedule column
+        for (int[] group : Config.getScheduleGroups())
+            for (int j = 0; j < group.length; j++) column[group[j]] = j;
+
+        SLOT_VENUE = new int[VenueOptimizer.VALID_ASSIGNMENTS.length][column.length];
+        for (int ai = 0; ai < SLOT_VENUE.length; ai++)
+            for (int s = 0; s < column.length; s++)
+                SLOT_VENUE[ai][s] = VenueOptimizer.VALID_ASSIGNMENTS[ai][VenueOptimizer.COLUMN_BLOCK[column[s]]];
+    }
+
+    private final Arena           arena = Arena.ofShared();
+    private final MemorySegment[] segments;    // the records of each segment, header skipped
+    private final int[]           firstId;     // [segment] → id of its first record; [n] = size
+    private final int             size, scored;
+    private final int             nTeams, nWeeks, nVenues, recordSize, choicesOffset;
+
+    private final int[]   byScore;
+    private final int[][] byInRange;   // [teamsInRange] → ids ascending
+    private final byte[]  venueCounts; // [(id·nTeams + team)·nVenues + venue]
+
+    /** Maps every segment of a log directory, or the one segment given, and indexes them. */
+    SolutionArchive(Path dirOrSegment) throws IOException {
+        this.nTeams        = MatchMatrix.MATCHES_PER_WEEK;
+        this.nWeeks        = Config.getWeeks();
+        this.nVenues       = VenueOptimizer.N_VENUES;
+        this.recordSize    = SolutionLog.recordSize(nTeams, nWeeks);
+        this.choicesOffset = SolutionLog.choicesOffset(nTeams, nWeeks);
+
+        List<Path> paths = SolutionLog.segments(dirOrSegment);
+        segments = new MemorySegment[paths.size()];
+        firstId  = new int[paths.size() + 1];
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                MemorySegment mapped;
+                try (FileChannel channel = FileChannel.open(paths.get(i), StandardOpenOption.READ)) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+                }
+                byte[] header = mapped.asSlice(0, Math.min(mapped.byteSize(), SolutionLog.HEADER_SIZE))
+                                      .toArray(BYTE);
+                SolutionLog.checkHeader(paths.get(i), ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN),
+                                        nTeams, nWeeks);
+                int n = intactRecords(paths.get(i), mapped);
+                segments[i]    = mapped.asSlice(SolutionLog.HEADER_SIZE, (long) n * recordSize);
+                firstId[i + 1] = Math.addExact(firstId[i], n);
+            }
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+        size = firstId[segments.length];
+
+        // ── Indexes ───────────────────────────────────────────────────────────
+        venueCounts = new byte[Math.multiplyExact(size, nTeams * nVenues)];
+        long[] keys = new long[size];
+        IntStream.range(0, size).parallel().forEach(id -> keys[id] = countVenues(id));
+        Arrays.parallelSort(keys);
+        byScore = new int[size];
+        for (int i = 0; i < size; i++) byScore[i] = (int) keys[i];
+
+        int[] perValue = new int[nTeams + 1];
+        for (int id = 0; id < size; id++) if (teamsInRange(id) >= 0) perValue[teamsInRange(id)]++;
+        byInRange = new int[nTeams + 1][];
+        for (int v = 0; v <= nTeams; v++) byInRange[v] = new int[perValue[v]];
+        Arrays.fill(perValue, 0);
+        for (int id = 0; id < size; id++) {
+            int v = teamsInRange(id);
+            if (v >= 0) byInRange[v][perValue[v]++] = id;
+        }
+        int n = 0;
+        for (int[] ids : byInRange) n += ids.length;
+        scored = n;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    int size()   { return size; }
+    int scored() { return scored; }
+
+    // ── Record fields, read from the mapping ─────────────────────────────────
+
+    long    savedMs(int id)     { return segment(id).get(LONG,   offset(id) + SolutionLog.OFF_SAVED); }
+    int     solutionNum(int id) { return segment(id).get(INT,    offset(id) + SolutionLog.OFF_SOLUTION); }
+    int     threadId(int id)    { return segment(id).get(SHORT,  offset(id) + SolutionLog.OFF_THREAD); }
+    double  score(int id)       { return segment(id).get(DOUBLE, offset(id) + SolutionLog.OFF_SCORE); }
+
+    boolean repaired(int id) {
+        return (segment(id).get(BYTE, offset(id) + SolutionLog.OFF_FLAGS) & SolutionLog.FLAG_REPAIRED) != 0;
+    }
+
+    /** Teams meeting every venue target, or -1 if the record is not venue-scored. */
+    int teamsInRange(int id) {
+        int v = segment(id).get(BYTE, offset(id) + SolutionLog.OFF_IN_RANGE) & 0xFF;
+        return v == SolutionLog.UNSCORED ? -1 : v;
+    }
+
+    /**
+     * Games team plays at venue in week — 0, 1 or 2, as its two weekly games
+     * may be in blocks sent to different venues — or -1 if the record is not
+     * venue-scored.
+     */
+    int gamesAt(int id, int week, int team, int venue) {
+        if (teamsInRange(id) < 0) return -1;
+
+        MemorySegment m      = segment(id);
+        long          at     = offset(id);
+        int           choice = m.get(BYTE, at + choicesOffset + week) & 0xFF;
+        long          pairs  = at + SolutionLog.OFF_PAIRS + 2L * nTeams * week;
+        int           games  = 0;
+        for (int i = 0; i < 2 * nTeams; i++)
+            if (m.get(BYTE, pairs + i) == team && SLOT_VENUE[choice][i >> 1] == venue) games++;
+        return games;
+    }
+
+    /** Most consecutive weeks team plays at least one game at venue. */
+    int longestRun(int id, int team, int venue) {
+        int longest = 0, run = 0;
+        for (int w = 0; w < nWeeks; w++) {
+            run     = gamesAt(id, w, team, venue) > 0 ? run + 1 : 0;
+            longest = Math.max(longest, run);
+        }
+        return longest;
+    }
+
+    /** Season games team plays at venue, from the venue count index; 0 if not venue-scored. */
+    int venueCount(int id, int team, int venue) {
+        return venueCounts[(id * nTeams + team) * nVenues + venue];
+    }
+
+    /** The whole record, decoded. */
+    SolutionLog.Record record(int id) {
+        return SolutionLog.decode(segment(id).asByteBuffer().order(ByteOrder.LITTLE_ENDIAN),
+                                  (int) offset(id), nTeams, nWeeks);
+    }
+
+    // ── Queries ───────────────────────────────────────────────────────────────
+
+    /** Ids of every record matching where, ascending; a parallel scan. */
+    int[] select(IntPredicate where) {
+        return IntStream.range(0, size).parallel().filter(where).toArray();
+    }
+
+    /** The candidates matching where, in candidate order; a parallel scan. */
+    int[] select(int[] candidates, IntPredicate where) {
+        return Arrays.stream(candidates).parallel().filter(where).toArray();
+    }
+
+    /** The k best-scoring venue-scored records, best first. */
+    int[] best(int k) {
+        return Arrays.copyOf(byScore, Math.min(k, scored));
+    }
+
+    /** Ids of records with at least min teams in range, ascending. */
+    int[] withTeamsInRange(int min) {
+        int n = 0;
+        for (int v = Math.max(min, 0); v <= nTeams; v++) n += byInRange[v].length;
+        int[] ids = new int[n];
+        for (int v = Math.max(min, 0), at = 0; v <= nTeams; at += byInRange[v++].length)
+            System.arraycopy(byInRange[v], 0, ids, at, byInRange[v].length);
+        Arrays.parallelSort(ids);
+        return ids;
+    }
+
+    /** Ids of venue-scored records where team plays min..max games at venue, ascending. */
+    int[] withVenueCount(int team, int venue, int min, int max) {
+        return IntStream.range(0, size).parallel()
+                        .filter(id -> teamsInRange(id) >= 0)
+                        .filter(id -> {
+                            int c = venueCount(id, team, venue);
+                            return c >= min && c <= max;
+                        })
+                        .toArray();
+    }
+
+    // ── Internals ─────────────────────────────────────────────────────────────
+
+    private MemorySegment segment(int id) {
+        return segments[segmentOf(id)];
+    }
+
+    private long offset(int id) {
+        return (long) (id - firstId[segmentOf(id)]) * recordSize;
+    }
+
+    /** The last segment starting at or before id — empty segments share their successor's start. */
+    private int segmentOf(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException(id);
+        int lo = 0, hi = segments.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (firstId[mid] <= id) lo = mid;
+            else                    hi = mid - 1;
+        }
+        return lo;
+    }
+
+    /** Records of a mapped segment before the first failing checksum. */
+    private int intactRecords(Path path, MemorySegment mapped) {
+        int n    = (int) ((mapped.byteSize() - SolutionLog.HEADER_SIZE) / recordSize);
+        int torn = IntStream.range(0, n).parallel()
+                            .filter(i -> !checksumHolds(mapped, SolutionLog.HEADER_SIZE + (long) i * recordSize))
+                            .min()
+                            .orElse(n);
+        if (torn < n) System.err.printf("%s: bad checksum at record %d, ignoring the rest%n", path, torn);
+        return torn;
+    }
+
+    private boolean checksumHolds(MemorySegment mapped, long at) {
+        // CRC32C cannot read buffers of a closeable shared arena; records are small enough to copy
+        CRC32C crc = new CRC32C();
+        crc.update(mapped.asSlice(at, recordSize - 4).toArray(BYTE));
+        return (int) crc.getValue() == mapped.get(INT, at + recordSize - 4);
+    }
+
+    /**
+     * Fills id's venue counts from its logged choices and returns its score
+     * index key: scaled score above, id below, unscored records last.
+     */
+    private long countVenues(int id) {
+        if (teamsInRange(id) < 0) return (long) Integer.MAX_VALUE << 32 | id;
+
+        MemorySegment m      = segment(id);
+        long          at     = offset(id);
+        int[][]       counts = new int[nTeams][nVenues];
+        for (int w = 0; w < nWeeks; w++) {
+            int[] venues = SLOT_VENUE[m.get(BYTE, at + choicesOffset + w) & 0xFF];
+            long  pairs  = at + SolutionLog.OFF_PAIRS + 2L * nTeams * w;
+            for (int i = 0; i < 2 * nTeams; i++) {
+                int t = m.get(BYTE, pairs + i);
+                if (t >= 0) counts[t][venues[i >> 1]]++;
+            }
+        }
+
+        long score = 0;
+        for (int t = 0; t < nTeams; t++) {
+            for (int v = 0; v < nVenues; v++)
+                venueCounts[(id * nTeams + t) * nVenues + v] = (byte) counts[t][v];
+            score += VenueOptimizer.teamScore(counts[t]);
+        }
+        return score << 32 | id;
+    }
+
+    // ── Command line ──────────────────────────────────────────────────────────
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java SolutionArchive <log dir | segment> [min teams in range] [top N]");
+            System.exit(1);
+        }
+        int minInRange = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        int top        = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        long t0 = System.nanoTime();
+        try (SolutionArchive archive = new SolutionArchive(Path.of(args[0]))) {
+            System.out.printf("%,d schedules (%,d venue-scored) in %d segments, indexed in %d ms%n",
+                    archive.size(), archive.scored(), archive.segments.length,
+                    (System.nanoTime() - t0) / 1_000_000);
+
+            System.out.println();
+            System.out.println("In range  Schedules");
+            for (int v = archive.nTeams; v >= 0; v--)
+                if (archive.byInRange[v].length > 0)
+                    System.out.printf("%5d/%-2d  %,9d%n", v, archive.nTeams, archive.byInRange[v].length);
+
+            int[] matching = archive.select(archive.best(archive.scored()),
+                                            id -> archive.teamsInRange(id) >= minInRange);
+            System.out.println();
+            System.out.printf("Best %d with %d+ teams in range:%n", Math.min(top, matching.length), minInRange);
+            System.out.println("  Solution  Thread  In range      Score  Repaired  Saved");
+            for (int i = 0; i < Math.min(top, matching.length); i++) {
+                int id = matching[i];
+                System.out.printf("  %8d  %6d  %5d/%-2d  %9.3f  %-8s  %s%n",
+                        archive.solutionNum(id), archive.threadId(id), archive.teamsInRange(id),
+                        archive.nTeams, archive.score(id), archive.repaired(id) ? "yes" : "",
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(archive.savedMs(id)), ZoneId.systemDefault()));
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Solution Dedup
+ * ==============
+ * Drops schedules already seen, compared by CanonicalForm, before they are
+ * venue-scored or written.
+ *
+ *   - This run: an exact open-addressing set of 128-bit canonical hashes.
+ *   - Earlier runs: a Bloom filter of every hash ever let through, loaded
+ *     from and saved back to one file (by default next to the solution
+ *     log).  A false positive drops a new schedule; at BLOOM_BITS and
+ *     BLOOM_HASHES that is about 1 in 2,000 after a million schedules.
+ *
+ * The filter is saved by save(), on shutdown; a run that dies without it
+ * only forgets its own schedules.  All methods are thread-safe.
+ */
+final class SolutionDedup {
+
+    static final int BLOOM_BITS   = 1 << 24; // 2 MB
+    static final int BLOOM_HASHES = 7;
+
+    private static final byte[] MAGIC       = "SCHEDBLM".getBytes(StandardCharsets.US_ASCII);
+    private static final int    VERSION     = 2;
+    private static final int    HEADER_SIZE = 32;
+
+    private static final int INITIAL_CAPACITY = 1 << 12; // powers of two
+
+    private final Path   file;
+    private final long[] bloom = new long[BLOOM_BITS / 64];
+    private final int    nTeams, nWeeks;
+    private final int    layoutHash; // schedule groups and rotation blocks
+
+    // This run's hashes: keys[2·slot], keys[2·slot + 1] = high, low
+    private long[]    keys = new long[2 * INITIAL_CAPACITY];
+    private boolean[] used = new boolean[INITIAL_CAPACITY];
+    private int       size;
+
+    private long duplicatesThisRun, duplicatesEarlier;
+
+    /**
+     * Opens the filter saved in file, or starts an empty one if there is
+     * none or it was saved for another config.
+     */
+    SolutionDedup(Path file) throws IOException {
+        this.file   = file;
+        this.nTeams = MatchMatrix.MATCHES_PER_WEEK;
+        this.nWeeks = Config.getWeeks();
+        // Presets with the same teams and weeks (C1, C3) lay weeks out
+        // differently: a filter from one says nothing about the other
+        this.layoutHash = 31 * Arrays.deepHashCode(Config.getScheduleGroups())
+                          + Arrays.hashCode(Config.getRotationBlocks());
+
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        ByteBuffer b = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length != HEADER_SIZE + bloom.length * 8
+                || !Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length)
+                || b.getInt(8) != VERSION || b.getInt(12) != nTeams || b.getInt(16) != nWeeks
+                || b.getInt(20) != BLOOM_BITS || b.getInt(24) != BLOOM_HASHES || b.getInt(28) != layoutHash) {
+            System.err.println(file + ": not a dedup filter for this config — starting a new one");
+            return;
+        }
+        b.position(HEADER_SIZE).asLongBuffer().get(bloom);
+    }
+
+    /**
+     * True the first time a schedule of this canonical form is offered;
+     * false for a duplicate of one seen this run or, probably, in an
+     * earlier one.
+     */
+    boolean firstSighting(MatchMatrix matches) {
+        long[] h = CanonicalForm.hash(CanonicalForm.of(matches));
+        synchronized (this) {
+            if (!add(h[0], h[1])) {
+                duplicatesThisRun++;
+                return false;
+            }
+            if (bloomContains(h[0], h[1])) {
+                duplicatesEarlier++;
+                return false;
+            }
+            bloomAdd(h[0], h[1]);
+            return true;
+        }
+    }
+
+    synchronized long duplicatesThisRun() { return duplicatesThisRun; }
+    synchronized long duplicatesEarlier() { return duplicatesEarlier; }
+
+    /** Writes the filter to its file, replacing the previous one whole. */
+    synchronized void save() throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE + bloom.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+        b.put(MAGIC).putInt(VERSION).putInt(nTeams).putInt(nWeeks).putInt(BLOOM_BITS).putInt(BLOOM_HASHES)
+         .putInt(layoutHash);
+        b.position(HEADER_SIZE).asLongBuffer().put(bloom);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(tmp, b.array());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ── Bloom filter ──────────────────────────────────────────────────────────
+
+    // Kirsch–Mitzenmacher double hashing: bit i = low + i·high, mod BLOOM_BITS
+
+    private boolean bloomContains(long hi, long lo) {
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (int) ((lo + i * hi) & (BLOOM_BITS - 1));
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private void bloomAdd(long hi, long lo) {
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (int) ((lo + i * hi) & (BLOOM_BITS - 1));
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    // ── This run's set ────────────────────────────────────────────────────────
+
+    /** Returns false if the hash was already present. */
+    private boolean add(long hi, long lo) {
+        int slot = find(hi, lo);
+        if (used[slot]) return false;
+        if (size >= used.length * 3 / 4) {
+            grow();
+            slot = find(hi, lo);
+        }
+        used[slot]         = true;
+        keys[2 * slot]     = hi;
+        keys[2 * slot + 1] = lo;
+        size++;
+        return true;
+    }
+
+    private int find(long hi, long lo) {
+        int mask = used.length - 1;
+        int slot = (int) (hi ^ (hi >>> 32)) & mask;
+        while (used[slot] && (keys[2 * slot] != hi || keys[2 * slot + 1] != lo))
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void grow() {
+        long[]    oldKeys = keys;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        used = new boolean[oldUsed.length * 2];
+        for (int slot = 0; slot < oldUsed.length; slot++) {
+            if (!oldUsed[slot]) continue;
+            int to = find(oldKeys[2 * slot], oldKeys[2 * slot + 1]);
+            used[to]         = true;
+            keys[2 * to]     = oldKeys[2 * slot];
+            keys[2 * to + 1] = oldKeys[2 * slot + 1];
+        }
+    }
+}
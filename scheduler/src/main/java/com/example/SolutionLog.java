@@ -0,0 +1,305 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Solution Log
+ * ============
+ * Append-only binary log of saved schedules: one fixed-size record per
+ * schedule instead of two text files and a summary line.  The text formats
+ * are rendered on demand by SolutionLogExport.
+ *
+ * A log is a directory of segments, solutions-000001.slog, -000002, ...
+ * Each run starts a new segment and rotates after MAX_SEGMENT_RECORDS, so a
+ * segment is only ever appended to by the one writer that created it.
+ * Everything is little-endian.
+ *
+ *   Segment header, HEADER_SIZE bytes:
+ *     0   8  magic "SCHEDLOG"
+ *     8   4  format version
+ *    12   4  teams
+ *    16   4  weeks
+ *    20   4  record size
+ *    24   8  created, epoch ms
+ *    60   4  CRC32C of bytes 0..59
+ *
+ *   Record, recordSize(teams, weeks) bytes:
+ *     0   8  saved, epoch ms
+ *     8   4  solution number
+ *    12   2  search thread
+ *    14   1  teams in range, 0xFF if not venue-scored
+ *    15   1  flags: bit 0 = repaired
+ *    16   8  venue score (double), NaN if not venue-scored
+ *    24  2·teams·weeks  week by week, slot by slot (MatchMatrix.weekView
+ *                       order): lower team, higher team
+ *     …   weeks  venue assignment index per week, 0xFF if not venue-scored
+ *     …   zero padding to a multiple of 4
+ *    -4   4  CRC32C of the record before it
+ *
+ * A record whose checksum fails ends its segment for readers: it can only
+ * be the torn tail of a write that did not finish.  Records are written
+ * with one channel write per batch, not forced to disk per record.
+ */
+final class SolutionLog implements AutoCloseable {
+
+    static final int    VERSION             = 1;
+    static final int    HEADER_SIZE         = 64;
+    static final int    MAX_SEGMENT_RECORDS = 1 << 16;
+    static final String SEGMENT_PREFIX      = "solutions-";
+    static final String SEGMENT_SUFFIX      = ".slog";
+
+    private static final byte[] MAGIC = "SCHEDLOG".getBytes(StandardCharsets.US_ASCII);
+
+    // Record field offsets
+    static final int OFF_SAVED    = 0;
+    static final int OFF_SOLUTION = 8;
+    static final int OFF_THREAD   = 12;
+    static final int OFF_IN_RANGE = 14;
+    static final int OFF_FLAGS    = 15;
+    static final int OFF_SCORE    = 16;
+    static final int OFF_PAIRS    = 24;
+
+    static final int FLAG_REPAIRED = 1;
+    static final int UNSCORED      = 0xFF;
+
+    static int choicesOffset(int nTeams, int nWeeks) { return OFF_PAIRS + 2 * nTeams * nWeeks; }
+
+    static int recordSize(int nTeams, int nWeeks) {
+        return ((choicesOffset(nTeams, nWeeks) + nWeeks + 3) & ~3) + 4;
+    }
+
+    private final Path        dir;
+    private final int         nTeams, nWeeks, recordSize;
+    private final CRC32C      crc = new CRC32C();
+    private       ByteBuffer  batch;
+    private       FileChannel channel;
+    private       int         segment;   // number of the open segment
+    private       int         inSegment; // records in it, including the unflushed batch
+
+    /** Opens a log in dir, starting a new segment after any already there. */
+    SolutionLog(Path dir) throws IOException {
+        // A choice is logged as one byte, and 0xFF means unscored
+        if (VenueOptimizer.isSupported() && VenueOptimizer.VALID_ASSIGNMENTS.length > UNSCORED)
+            throw new IOException(String.format("%d weekly venue assignments, a log holds at most %d",
+                                                VenueOptimizer.VALID_ASSIGNMENTS.length, UNSCORED));
+        this.dir        = dir;
+        this.nTeams     = MatchMatrix.MATCHES_PER_WEEK;
+        this.nWeeks     = Config.getWeeks();
+        this.recordSize = recordSize(nTeams, nWeeks);
+        this.batch      = ByteBuffer.allocate(recordSize * 32).order(ByteOrder.LITTLE_ENDIAN);
+        Files.createDirectories(dir);
+        List<Path> existing = segments(dir);
+        segment = existing.isEmpty() ? 0 : segmentNumber(existing.get(existing.size() - 1));
+        openNext();
+    }
+
+    /**
+     * Buffers one schedule; flush() writes it.  weeks is MatchMatrix.weekView();
+     * venue is null if venue optimization is unsupported.
+     */
+    void append(long savedMs, int solutionNum, int threadId, int[][] weeks,
+                VenueOptimizer.OptResult venue, boolean repaired) throws IOException {
+        if (inSegment == MAX_SEGMENT_RECORDS) {
+            flush();
+            channel.close();
+            openNext();
+        }
+        if (batch.remaining() < recordSize) {
+            ByteBuffer grown = ByteBuffer.allocate(batch.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            batch.flip();
+            batch = grown.put(batch);
+        }
+
+        int start = batch.position();
+        batch.putLong(savedMs)
+             .putInt(solutionNum)
+             .putShort((short) threadId)
+             .put((byte) (venue == null ? UNSCORED : venue.teamsInRange))
+             .put((byte) (repaired ? FLAG_REPAIRED : 0))
+             .putDouble(venue == null ? Double.NaN : venue.score);
+        for (int w = 0; w < nWeeks; w++)
+            for (int i = 0; i < 2 * nTeams; i++) batch.put((byte) weeks[w][i]);
+        for (int w = 0; w < nWeeks; w++) batch.put((byte) (venue == null ? UNSCORED : venue.choices[w]));
+        while (batch.position() < start + recordSize - 4) batch.put((byte) 0);
+
+        crc.reset();
+        crc.update(batch.array(), start, recordSize - 4);
+        batch.putInt((int) crc.getValue());
+        inSegment++;
+    }
+
+    /** Where the last appended record lives: "<segment file> #<record index>". */
+    String lastAppended() {
+        return String.format("%s%06d%s #%d", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX, inSegment - 1);
+    }
+
+    /** Writes buffered records to the open segment. */
+    void flush() throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) channel.write(batch);
+        batch.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void openNext() throws IOException {
+        segment++;
+        inSegment = 0;
+        Path path = dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putInt(VERSION).putInt(nTeams).putInt(nWeeks).putInt(recordSize)
+              .putLong(System.currentTimeMillis());
+        crc.reset();
+        crc.update(header.array(), 0, HEADER_SIZE - 4);
+        header.putInt(HEADER_SIZE - 4, (int) crc.getValue());
+        header.rewind();
+        while (header.hasRemaining()) channel.write(header);
+    }
+
+    // ── Reading ───────────────────────────────────────────────────────────────
+
+    /** One logged schedule. */
+    static final class Record {
+        final long    savedMs;
+        final int     solutionNum;
+        final int     threadId;
+        final int     teamsInRange; // -1 if not venue-scored
+        final boolean repaired;
+        final double  score;        // NaN if not venue-scored
+        final int[][] weeks;        // MatchMatrix.weekView() layout
+        final int[]   choices;      // null if not venue-scored
+
+        Record(long savedMs, int solutionNum, int threadId, int teamsInRange, boolean repaired,
+               double score, int[][] weeks, int[] choices) {
+            this.savedMs      = savedMs;
+            this.solutionNum  = solutionNum;
+            this.threadId     = threadId;
+            this.teamsInRange = teamsInRange;
+            this.repaired     = repaired;
+            this.score        = score;
+            this.weeks        = weeks;
+            this.choices      = choices;
+        }
+
+        /** The schedule, numbered week by week and slot by slot as generated. */
+        MatchMatrix matches() {
+            MatchMatrix m = new MatchMatrix();
+            for (int w = 0; w < weeks.length; w++)
+                for (int s = 0; s < MatchMatrix.MATCHES_PER_WEEK; s++)
+                    if (weeks[w][2 * s] >= 0)
+                        m.setMatchValueByRowCol(weeks[w][2 * s], weeks[w][2 * s + 1],
+                                                w * MatchMatrix.MATCHES_PER_WEEK + s + 1);
+            return m;
+        }
+
+        /** The venue result the schedule was saved with, or null if not venue-scored. */
+        VenueOptimizer.OptResult venueResult() {
+            if (choices == null) return null;
+            int[][][][] pairs = VenueOptimizer.weekMatchPairs(matches());
+            return VenueOptimizer.result(pairs, VenueOptimizer.deltas(pairs), choices);
+        }
+    }
+
+    /** Segments of a log directory in order, or the one segment file given. */
+    static List<Path> segments(Path dirOrSegment) throws IOException {
+        if (!Files.isDirectory(dirOrSegment)) return List.of(dirOrSegment);
+        try (Stream<Path> files = Files.list(dirOrSegment)) {
+            return files.filter(p -> {
+                            String name = p.getFileName().toString();
+                            return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                        })
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    /**
+     * Reads every record of a segment whose checksum holds, stopping at a
+     * torn tail.  Throws if the header is not a log of the active config.
+     */
+    static int read(Path segment, Consumer<Record> out) throws IOException {
+        int nTeams = MatchMatrix.MATCHES_PER_WEEK;
+        int nWeeks = Config.getWeeks();
+        int size   = recordSize(nTeams, nWeeks);
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(segment)).order(ByteOrder.LITTLE_ENDIAN);
+        checkHeader(segment, bytes, nTeams, nWeeks);
+
+        CRC32C crc = new CRC32C();
+        int    n   = 0;
+        for (int at = HEADER_SIZE; at + size <= bytes.limit(); at += size, n++) {
+            crc.reset();
+            crc.update(bytes.array(), at, size - 4);
+            if ((int) crc.getValue() != bytes.getInt(at + size - 4)) {
+                System.err.printf("%s: bad checksum at record %d, ignoring the rest%n", segment, n);
+                break;
+            }
+            out.accept(decode(bytes, at, nTeams, nWeeks));
+        }
+        return n;
+    }
+
+    /** Reads all segments of a log directory in order. */
+    static int readAll(Path dirOrSegment, Consumer<Record> out) throws IOException {
+        int n = 0;
+        for (Path segment : segments(dirOrSegment)) n += read(segment, out);
+        return n;
+    }
+
+    static void checkHeader(Path segment, ByteBuffer bytes, int nTeams, int nWeeks) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        if (bytes.limit() < HEADER_SIZE) throw new IOException(segment + ": not a solution log");
+        bytes.get(0, magic);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.array(), 0, HEADER_SIZE - 4);
+        if (!Arrays.equals(magic, MAGIC) || (int) crc.getValue() != bytes.getInt(HEADER_SIZE - 4))
+            throw new IOException(segment + ": not a solution log");
+        if (bytes.getInt(8) != VERSION)
+            throw new IOException(segment + ": log format " + bytes.getInt(8) + ", expected " + VERSION);
+        if (bytes.getInt(12) != nTeams || bytes.getInt(16) != nWeeks)
+            throw new IOException(String.format("%s: logged for %d teams × %d weeks, active config is %d × %d",
+                    segment, bytes.getInt(12), bytes.getInt(16), nTeams, nWeeks));
+    }
+
+    static Record decode(ByteBuffer b, int at, int nTeams, int nWeeks) {
+        int     inRange = b.get(at + OFF_IN_RANGE) & 0xFF;
+        int[][] weeks   = new int[nWeeks][2 * nTeams];
+        for (int w = 0, p = at + OFF_PAIRS; w < nWeeks; w++)
+            for (int i = 0; i < 2 * nTeams; i++, p++) weeks[w][i] = b.get(p);
+
+        int[] choices = null;
+        if (inRange != UNSCORED) {
+            choices = new int[nWeeks];
+            int p = at + choicesOffset(nTeams, nWeeks);
+            for (int w = 0; w < nWeeks; w++) choices[w] = b.get(p + w) & 0xFF;
+        }
+        return new Record(b.getLong(at + OFF_SAVED), b.getInt(at + OFF_SOLUTION),
+                          b.getShort(at + OFF_THREAD),
+                          inRange == UNSCORED ? -1 : inRange,
+                          (b.get(at + OFF_FLAGS) & FLAG_REPAIRED) != 0,
+                          b.getDouble(at + OFF_SCORE), weeks, choices);
+    }
+
+    private static int segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
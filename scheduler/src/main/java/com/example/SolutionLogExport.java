@@ -0,0 +1,67 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Renders schedules from a SolutionLog into the text files the search used
+ * to write directly: matches_*.txt, venue_schedule_*.txt and a line in
+ * venue_summary.txt each, named and stamped with the time they were saved.
+ * The active Config must be the one the log was written under.
+ */
+public class SolutionLogExport {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java SolutionLogExport <log dir | segment> [out dir] [solution# ...]");
+            System.err.println("  With no solution numbers every logged schedule is exported.");
+            System.exit(1);
+        }
+
+        Path         log    = Path.of(args[0]);
+        Path         out    = Path.of(args.length > 1 ? args[1] : ".");
+        Set<Integer> wanted = new HashSet<>();
+        for (int i = 2; i < args.length; i++) wanted.add(Integer.parseInt(args[i]));
+        Files.createDirectories(out);
+
+        int[] exported = {0};
+        int   read;
+        try {
+            read = SolutionLog.readAll(log, record -> {
+                if (!wanted.isEmpty() && !wanted.contains(record.solutionNum)) return;
+                try {
+                    export(record, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        System.out.printf("Exported %,d of %,d logged schedules to %s%n", exported[0], read, out);
+    }
+
+    static void export(SolutionLog.Record record, Path out) throws IOException {
+        LocalDateTime savedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(record.savedMs), ZoneId.systemDefault());
+        String        name    = MainMultiThreaded.solutionFileName(savedAt, record.threadId,
+                                                                   record.solutionNum, record.repaired);
+        String        matches = "matches_" + name;
+
+        ScheduleRenderer.write(record.matches(), out.resolve(matches).toString());
+
+        VenueOptimizer.OptResult venue = record.venueResult();
+        if (venue != null) {
+            VenueOptimizer.writeOutput(venue, matches, out.resolve("venue_schedule_" + name).toString());
+            VenueOptimizer.appendSummary(venue, matches,
+                                         out.resolve(VenueOptimizer.SUMMARY_FILE).toString(), savedAt);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Solution Pipeline
+ * =================
+ * Moves finished schedules off the search threads in three stages joined by
+ * bounded queues:
+ *
+ *   search workers ─▶ [score queue] ─▶ scorers ─▶ [write queue] ─▶ writer
+ *
+ *   - Search workers hand off a Snapshot — the match values by index, a
+ *     single int[] — and go straight back to searching.
+ *   - A fixed set of scorer threads runs the venue optimizer on each
+ *     snapshot and renders the survivors; a scorer returning null drops
+ *     the schedule.
+ *   - One writer thread drains whatever has accumulated, up to MAX_BATCH,
+ *     and writes it as a batch (see SolutionLog).
+ *
+ * Backpressure: both queues are bounded and a full queue blocks the stage
+ * in front of it, so a search worker stalls rather than letting unscored
+ * schedules pile up in memory.  Queue depths and stalls are exposed for the
+ * status display and /metrics.
+ */
+final class SolutionPipeline {
+
+    static final int SCORE_CAPACITY = 256; // snapshots waiting for a scorer
+    static final int WRITE_CAPACITY = 64;  // scored schedules waiting for the writer
+    static final int MAX_BATCH      = 32;  // schedules written per writer pass
+
+    /** A finished schedule as handed off by a search worker. */
+    static final class Snapshot {
+        final int           threadId;
+        final int           solutionNum;
+        private final int[] values;
+
+        Snapshot(MatchMatrix matches, int threadId, int solutionNum) {
+            this.threadId    = threadId;
+            this.solutionNum = solutionNum;
+            this.values      = matches.toValues();
+        }
+
+        /** A fresh MatchMatrix holding this schedule. */
+        MatchMatrix matches() { return MatchMatrix.fromValues(values); }
+    }
+
+    /** A scored and rendered schedule on its way to the writer. */
+    static final class Scored {
+        final Snapshot                 source;
+        final int[][]                  weeks;       // MatchMatrix.weekView() of the schedule as saved
+        final byte[]                   rendered;    // the matches file, see ScheduleRenderer; null if not wanted
+        final VenueOptimizer.OptResult venueResult; // null if venue optimization is unsupported
+        final boolean                  repaired;
+
+        Scored(Snapshot source, int[][] weeks, byte[] rendered,
+               VenueOptimizer.OptResult venueResult, boolean repaired) {
+            this.source      = source;
+            this.weeks       = weeks;
+            this.rendered    = rendered;
+            this.venueResult = venueResult;
+            this.repaired    = repaired;
+        }
+    }
+
+    private interface Stage { void run() throws InterruptedException; }
+
+    private final BlockingQueue<Snapshot> scoreQueue = new ArrayBlockingQueue<>(SCORE_CAPACITY);
+    private final BlockingQueue<Scored>   writeQueue = new ArrayBlockingQueue<>(WRITE_CAPACITY);
+    private final AtomicInteger           inFlight   = new AtomicInteger(0); // submitted, not yet written or dropped
+    private final AtomicLong              stalls     = new AtomicLong(0);    // hand-offs that found their queue full
+    private final AtomicLong              stallNanos = new AtomicLong(0);    // ... and the time spent waiting
+    private final List<Thread>            threads    = new ArrayList<>();
+
+    SolutionPipeline(int nScorers, Function<Snapshot, Scored> scorer, Consumer<List<Scored>> writer) {
+        for (int i = 0; i < nScorers; i++) start("solution-scorer-" + i, () -> score(scorer));
+        start("solution-writer", () -> write(writer));
+    }
+
+    /** Hands a finished schedule to the scorers; blocks while the score queue is full. */
+    void submit(MatchMatrix matches, int threadId, int solutionNum) throws InterruptedException {
+        inFlight.incrementAndGet();
+        try {
+            put(scoreQueue, new Snapshot(matches, threadId, solutionNum));
+        } catch (InterruptedException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits up to timeoutMs for everything submitted so far to be written
+     * or dropped, then stops the stage threads.
+     */
+    void close(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            try { Thread.sleep(20); } catch (InterruptedException e) { break; }
+        }
+        for (Thread t : threads) t.interrupt();
+    }
+
+    int  scoreDepth() { return scoreQueue.size(); }
+    int  writeDepth() { return writeQueue.size(); }
+    long stalls()     { return stalls.get(); }
+    long stallMs()    { return stallNanos.get() / 1_000_000; }
+
+    // ── Stages ────────────────────────────────────────────────────────────────
+
+    private void score(Function<Snapshot, Scored> scorer) throws InterruptedException {
+        while (true) {
+            Snapshot snapshot = scoreQueue.take();
+            Scored   scored   = null;
+            try {
+                scored = scorer.apply(snapshot);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            if (scored == null) inFlight.decrementAndGet();
+            else                put(writeQueue, scored);
+        }
+    }
+
+    private void write(Consumer<List<Scored>> writer) throws InterruptedException {
+        List<Scored> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            batch.add(writeQueue.take());
+            writeQueue.drainTo(batch, MAX_BATCH - 1);
+            try {
+                writer.accept(batch);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            inFlight.addAndGet(-batch.size());
+            batch.clear();
+        }
+    }
+
+    private <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+        if (queue.offer(item)) return;
+        stalls.incrementAndGet();
+        long t0 = System.nanoTime();
+        queue.put(item);
+        stallNanos.addAndGet(System.nanoTime() - t0);
+    }
+
+    private void start(String name, Stage stage) {
+        Thread t = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (InterruptedException e) {
+                // close() — stop quietly
+            }
+        }, name);
+        t.setDaemon(true);
+        threads.add(t);
+        t.start();
+    }
+}
@@ -0,0 +1,222 @@
+package com.example;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Solution Rescore
+ * ================
+ * Re-runs the venue optimizer over schedules found under an earlier Config
+ * — after court counts, rotation blocks or venue targets change — and
+ * writes them ranked, best first, to one summary file.
+ *
+ *   java SolutionRescore <dir | file>... [--out=<file>] [--top=<n>]
+ *
+ * Sources are matches_*.txt files, whose Week rows are read back as
+ * weekMatchPairs (row g, column j of a week), and SolutionLog segments,
+ * found by walking any directory given.  Their teams and weeks must match
+ * the active Config; anything else is skipped with a warning.  Logged
+ * schedules show the score they were saved with next to the new one.
+ *
+ * Schedules are scored on the common fork-join pool, one sequential
+ * optimize() per task.  Each worker parses into its own weekMatchPairs
+ * scratch, reused from schedule to schedule; the optimizer still builds
+ * its own tables per solve.
+ */
+public class SolutionRescore {
+
+    static final String DEFAULT_OUT = "rescore_summary.txt";
+
+    private static final int     N_TEAMS = MatchMatrix.MATCHES_PER_WEEK;
+    private static final int     N_WEEKS = Config.getWeeks();
+    private static final int[][] GROUPS  = Config.getScheduleGroups();
+    private static final int     N_ROWS  = GROUPS.length;
+    private static final int     N_COLS  = GROUPS[0].length;
+
+    /** A worker's parse buffer: weekMatchPairs plus the cells filled so far. */
+    private static final class Scratch {
+        final int[][][][] pairs = new int[N_WEEKS][N_ROWS][N_COLS][2];
+        int               cells;
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /** A schedule to re-score: a matches file, or a logged record and its segment. */
+    private static final class Source {
+        final Path               path;
+        final SolutionLog.Record record; // null for a matches file
+
+        Source(Path path, SolutionLog.Record record) {
+            this.path   = path;
+            this.record = record;
+        }
+
+        String label(Path base) {
+            String file = base == null ? path.toString() : base.relativize(path.toAbsolutePath()).toString();
+            return record == null ? file
+                                  : file + " #" + record.solutionNum + " (t" + record.threadId + ")";
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        String     out    = DEFAULT_OUT;
+        int        top    = Integer.MAX_VALUE;
+        for (String arg : args) {
+            if      (arg.startsWith("--out=")) out = arg.substring("--out=".length());
+            else if (arg.startsWith("--top=")) top = Integer.parseInt(arg.substring("--top=".length()));
+            else                               inputs.add(Path.of(arg));
+        }
+        if (inputs.isEmpty()) {
+            System.err.println("Usage: java SolutionRescore <dir | file>... [--out=<file>] [--top=<n>]");
+            System.err.println("  Re-scores matches_*.txt files and solution log segments under the active Config.");
+            System.exit(1);
+        }
+        if (!VenueOptimizer.isSupported()) {
+            System.err.println("Venue optimization does not support the active Config.");
+            System.exit(1);
+        }
+
+        List<Source> sources = new ArrayList<>();
+        for (Path input : inputs) collect(input, sources);
+
+        long     t0      = System.nanoTime();
+        int      n       = sources.size();
+        int[]    inRange = new int[n];
+        double[] score   = new double[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            VenueOptimizer.OptResult r = rescore(sources.get(i));
+            inRange[i] = r == null ? -1 : r.teamsInRange;
+            score[i]   = r == null ? Double.NaN : r.score;
+        });
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+
+        int[] ranked = IntStream.range(0, n).filter(i -> inRange[i] >= 0).boxed()
+                                .sorted(Comparator.<Integer>comparingInt(i -> -inRange[i])
+                                                  .thenComparingDouble(i -> score[i]))
+                                .mapToInt(Integer::intValue)
+                                .toArray();
+
+        writeSummary(out, sources, ranked, inRange, score, n - ranked.length, elapsedMs, top);
+        System.out.printf("Re-scored %,d schedules in %,d ms (%,d skipped) — ranked in %s%n",
+                          ranked.length, elapsedMs, n - ranked.length, out);
+    }
+
+    // ── Sources ───────────────────────────────────────────────────────────────
+
+    /** Adds input, or every matches file and log segment under it, to sources. */
+    static void collect(Path input, List<Source> sources) throws IOException {
+        List<Path> files;
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> walk = Files.walk(input)) {
+                files = walk.filter(Files::isRegularFile).sorted().toList();
+            }
+        } else {
+            files = List.of(input);
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(SolutionLog.SEGMENT_SUFFIX)) {
+                try {
+                    SolutionLog.read(file, record -> sources.add(new Source(file, record)));
+                } catch (IOException e) {
+                    System.err.println(e.getMessage() + " — skipped");
+                }
+            } else if (name.startsWith("matches_") && name.endsWith(".txt")) {
+                sources.add(new Source(file, null));
+            } else if (!Files.isDirectory(input)) {
+                System.err.println(file + ": not a matches_*.txt file or solution log segment — skipped");
+            }
+        }
+    }
+
+    /** Venue-optimizes source under the active Config, or null if it cannot be read as one of its schedules. */
+    static VenueOptimizer.OptResult rescore(Source source) {
+        Scratch scratch = SCRATCH.get();
+        try {
+            boolean ok = source.record == null ? parse(source.path, scratch) : fill(source.record, scratch);
+            if (!ok) {
+                System.err.println(source.path + ": not a " + N_TEAMS + "-team, " + N_WEEKS
+                                   + "-week schedule of this layout — skipped");
+                return null;
+            }
+        } catch (IOException e) {
+            System.err.println(source.path + ": " + e.getMessage() + " — skipped");
+            return null;
+        }
+        return VenueOptimizer.optimize(scratch.pairs, null);
+    }
+
+    /** Reads a matches file's Week rows into scratch; false unless every cell of the season is there. */
+    private static boolean parse(Path file, Scratch scratch) throws IOException {
+        scratch.cells = 0;
+        int rows = CourtCounter.forEachMatchup(file, (row, column, a, b) -> {
+            int w = row / N_ROWS, g = row % N_ROWS;
+            if (w >= N_WEEKS || column >= N_COLS || a < 1 || b < 1 || a > N_TEAMS || b > N_TEAMS) return false;
+            scratch.pairs[w][g][column][0] = Math.min(a, b) - 1;
+            scratch.pairs[w][g][column][1] = Math.max(a, b) - 1;
+            scratch.cells++;
+            return true;
+        });
+        return rows == N_WEEKS * N_ROWS && scratch.cells == N_WEEKS * N_ROWS * N_COLS;
+    }
+
+    /** Lays a logged schedule out as weekMatchPairs in scratch. */
+    private static boolean fill(SolutionLog.Record record, Scratch scratch) {
+        for (int w = 0; w < N_WEEKS; w++)
+            for (int g = 0; g < N_ROWS; g++)
+                for (int j = 0; j < N_COLS; j++) {
+                    int slot = GROUPS[g][j];
+                    if (record.weeks[w][2 * slot] < 0) return false;
+                    scratch.pairs[w][g][j][0] = record.weeks[w][2 * slot];
+                    scratch.pairs[w][g][j][1] = record.weeks[w][2 * slot + 1];
+                }
+        return true;
+    }
+
+    // ── Summary ───────────────────────────────────────────────────────────────
+
+    static void writeSummary(String out, List<Source> sources, int[] ranked, int[] inRange, double[] score,
+                             int skipped, long elapsedMs, int top) throws IOException {
+        Path base = Path.of("").toAbsolutePath();
+
+        Map<Integer, Integer> histogram = new TreeMap<>(Comparator.reverseOrder());
+        for (int i : ranked) histogram.merge(inRange[i], 1, Integer::sum);
+
+        List<String> targets = new ArrayList<>();
+        for (int v = 0; v < VenueOptimizer.N_VENUES; v++)
+            targets.add(String.format("%s %d\u2013%d", VenueOptimizer.VENUE_NAMES[v],
+                                      VenueOptimizer.RANGE_MIN[v], VenueOptimizer.RANGE_MAX[v]));
+
+        try (PrintWriter pw = new PrintWriter(new FileWriter(out))) {
+            pw.printf("Re-scored %,d schedules under Config %d (%d teams, %d weeks) in %,d ms; %,d skipped%n",
+                      ranked.length, Config.ACTIVE_CONFIG, N_TEAMS, N_WEEKS, elapsedMs, skipped);
+            pw.printf("TARGETS  %s   (per team, %d games)%n", String.join("   ", targets), N_WEEKS * 2);
+            for (Map.Entry<Integer, Integer> e : histogram.entrySet())
+                pw.printf("  %2d/%d in range: %,d%n", e.getKey(), N_TEAMS, e.getValue());
+            pw.println();
+
+            pw.printf("%6s  %8s  %9s  %-17s  %s%n", "Rank", "In range", "Score", "Was", "Source");
+            for (int r = 0; r < Math.min(top, ranked.length); r++) {
+                int                i      = ranked[r];
+                Source             source = sources.get(i);
+                SolutionLog.Record was    = source.record;
+                String             before = was == null || was.teamsInRange < 0 ? ""
+                                          : String.format("%2d/%d  %9.3f", was.teamsInRange, N_TEAMS, was.score);
+                pw.printf("%6d  %5d/%-2d  %9.3f  %-17s  %s%n",
+                          r + 1, inRange[i], N_TEAMS, score[i], before, source.label(base));
+            }
+        }
+    }
+}
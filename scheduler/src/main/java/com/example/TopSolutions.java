@@ -0,0 +1,166 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Top Solutions
+ * =============
+ * The best K venue-scored schedules of a run, best first: most teams in
+ * range, then lowest score; of two equal schedules the one already held
+ * stays.  A schedule is only saved if offer() lets it in, and the one it
+ * pushes out is handed back so its text files can be removed.
+ *
+ * mayEnter() compares against the current K-th entry without locking, so
+ * scorers can skip rendering schedules that cannot make it; offer() and
+ * the readers lock.  The leaderboard is served as JSON and written now and
+ * then as a text snapshot next to the solution log.
+ */
+final class TopSolutions {
+
+    static final String SNAPSHOT_FILE = "top_solutions.txt";
+
+    /** One held schedule and where it was saved. */
+    static final class Entry {
+        final long    savedMs;
+        final int     threadId;
+        final int     solutionNum;
+        final int     teamsInRange;
+        final double  score;
+        final boolean repaired;
+        // Set by the writer once saved
+        volatile String logRecord; // "<segment> #<record>" in the solution log; null if not logged
+        volatile String textName;  // solutionFileName() of its text files; null if none
+
+        Entry(long savedMs, int threadId, int solutionNum, VenueOptimizer.OptResult venue, boolean repaired) {
+            this.savedMs      = savedMs;
+            this.threadId     = threadId;
+            this.solutionNum  = solutionNum;
+            this.teamsInRange = venue.teamsInRange;
+            this.score        = venue.score;
+            this.repaired     = repaired;
+        }
+    }
+
+    // Worst first, so the head is the entry a better one evicts
+    private static final Comparator<Entry> WORST_FIRST =
+        Comparator.<Entry>comparingInt(e -> e.teamsInRange)
+                  .thenComparing(Comparator.<Entry>comparingDouble(e -> e.score).reversed())
+                  .thenComparing(Comparator.<Entry>comparingLong(e -> e.savedMs).reversed());
+
+    private final int                  capacity;
+    private final PriorityQueue<Entry> held;
+    private volatile Entry             bar; // the K-th best once full, else null
+    private long                       offered, evicted;
+
+    TopSolutions(int capacity) {
+        this.capacity = capacity;
+        this.held     = new PriorityQueue<>(capacity + 1, WORST_FIRST);
+    }
+
+    int capacity() { return capacity; }
+
+    /** False if a schedule scoring venue cannot enter now; true may still lose to a later offer. */
+    boolean mayEnter(VenueOptimizer.OptResult venue) {
+        Entry b = bar;
+        return b == null || beats(venue.teamsInRange, venue.score, b);
+    }
+
+    /**
+     * Offers a scored schedule.  Returns the entry that leaves the store:
+     * the evicted K-th best, candidate itself if it did not make it, or null
+     * if the store was not yet full.
+     */
+    synchronized Entry offer(Entry candidate) {
+        offered++;
+        if (held.size() == capacity) {
+            Entry worst = held.peek();
+            if (!beats(candidate.teamsInRange, candidate.score, worst)) return candidate;
+            held.poll();
+            held.add(candidate);
+            evicted++;
+            bar = held.peek();
+            return worst;
+        }
+        held.add(candidate);
+        if (held.size() == capacity) bar = held.peek();
+        return null;
+    }
+
+    synchronized int   size()    { return held.size(); }
+    synchronized Entry worst()   { return held.peek(); }
+    synchronized long  offered() { return offered; }
+    synchronized long  evicted() { return evicted; }
+
+    /** The held entries, best first. */
+    synchronized List<Entry> leaderboard() {
+        List<Entry> out = new ArrayList<>(held);
+        out.sort(WORST_FIRST.reversed());
+        return out;
+    }
+
+    private static boolean beats(int teamsInRange, double score, Entry other) {
+        return teamsInRange != other.teamsInRange ? teamsInRange > other.teamsInRange : score < other.score;
+    }
+
+    // ── Output ────────────────────────────────────────────────────────────────
+
+    /** The leaderboard as JSON, for the metrics server. */
+    String toJson() {
+        List<Entry>   board = leaderboard();
+        StringBuilder sb    = new StringBuilder();
+        sb.append(String.format("{\"capacity\":%d,\"size\":%d,\"offered\":%d,\"evicted\":%d,\"entries\":[",
+                                capacity, board.size(), offered(), evicted()));
+        for (int r = 0; r < board.size(); r++) {
+            Entry e = board.get(r);
+            if (r > 0) sb.append(',');
+            sb.append(String.format(
+                "{\"rank\":%d,\"teamsInRange\":%d,\"score\":%.3f,\"savedMs\":%d,\"threadId\":%d," +
+                "\"solutionNum\":%d,\"repaired\":%b,\"logRecord\":%s,\"textFile\":%s}",
+                r + 1, e.teamsInRange, e.score, e.savedMs, e.threadId, e.solutionNum, e.repaired,
+                quoted(e.logRecord), quoted(e.textName == null ? null : "matches_" + e.textName)));
+        }
+        return sb.append("]}").toString();
+    }
+
+    /** Writes the leaderboard to file as a table, replacing the previous snapshot whole. */
+    void writeSnapshot(Path file) throws IOException {
+        List<Entry>       board = leaderboard();
+        DateTimeFormatter ts    = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        int               n     = MatchMatrix.MATCHES_PER_WEEK;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Top %d of %,d schedules offered (%,d evicted) at %s%n",
+                                board.size(), offered(), evicted(), LocalDateTime.now().format(ts)));
+        sb.append(String.format("%4s  %8s  %9s  %-19s  %s%n", "Rank", "In range", "Score", "Saved", "Source"));
+        for (int r = 0; r < board.size(); r++) {
+            Entry  e      = board.get(r);
+            String saved  = LocalDateTime.ofInstant(Instant.ofEpochMilli(e.savedMs), ZoneId.systemDefault()).format(ts);
+            String source = e.logRecord != null ? e.logRecord
+                          : e.textName  != null ? "matches_" + e.textName
+                          : "(being written)";
+            sb.append(String.format("%4d  %5d/%-2d  %9.3f  %-19s  %s  (t%d s%d%s)%n",
+                                    r + 1, e.teamsInRange, n, e.score, saved, source,
+                                    e.threadId, e.solutionNum, e.repaired ? ", repaired" : ""));
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String quoted(String s) {
+        return s == null ? "null" : "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
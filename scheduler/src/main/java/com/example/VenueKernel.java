@@ -0,0 +1,52 @@
+package com.example;
+
+/**
+ * Venue Kernel
+ * ============
+ * The inner loops of VenueOptimizer over contiguous primitive rows: the
+ * week-pair bound of all children of a node (a min-plus product against the
+ * transposed pair table), the accumulator update when a week is fixed, and
+ * the flattened delta dot products that build the score tables.
+ *
+ * Each method runs SIMD-wide through VenueKernelVector when the
+ * jdk.incubator.vector module is present (--add-modules
+ * jdk.incubator.vector, see .mvn/jvm.config) and falls back to a scalar loop
+ * otherwise.  -DnoSimd=true forces the scalar path.  SIMD is a static final
+ * constant, so the JIT drops the unused branch.
+ */
+final class VenueKernel {
+
+    static final boolean SIMD =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !Boolean.getBoolean("noSimd");
+
+    private VenueKernel() {}
+
+    /**
+     * Min-plus row update: out[a] += min over b < n of x[xo+b] + y[yo+b] +
+     * m[b·n + a].  m is a transposed n×n table, so the lanes run over a and
+     * the whole row of children is bounded without a horizontal reduction.
+     */
+    static void addMinPlus(long[] x, int xo, long[] y, int yo, long[] m, long[] out, int n) {
+        if (SIMD) { VenueKernelVector.addMinPlus(x, xo, y, yo, m, out, n); return; }
+        for (int a = 0; a < n; a++) {
+            long lo = Long.MAX_VALUE;
+            for (int b = 0; b < n; b++) lo = Math.min(lo, x[xo + b] + y[yo + b] + m[b * n + a]);
+            out[a] += lo;
+        }
+    }
+
+    /** out[oo+i] = x[xo+i] + y[yo+i] for i < n. */
+    static void add(long[] x, int xo, long[] y, int yo, long[] out, int oo, int n) {
+        if (SIMD) { VenueKernelVector.add(x, xo, y, yo, out, oo, n); return; }
+        for (int i = 0; i < n; i++) out[oo + i] = x[xo + i] + y[yo + i];
+    }
+
+    /** Σ x[i]·y[i] over the common length. */
+    static long dot(int[] x, int[] y) {
+        if (SIMD) return VenueKernelVector.dot(x, y);
+        long sum = 0;
+        for (int i = 0; i < x.length; i++) sum += x[i] * y[i];
+        return sum;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API bodies for VenueKernel.  Only loaded when the
+ * jdk.incubator.vector module is present; every method handles the tail
+ * past the last full vector with a scalar loop.
+ */
+final class VenueKernelVector {
+
+    private static final VectorSpecies<Long>    L = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> I = IntVector.SPECIES_PREFERRED;
+
+    private VenueKernelVector() {}
+
+    static void addMinPlus(long[] x, int xo, long[] y, int yo, long[] m, long[] out, int n) {
+        int a   = 0;
+        int end = L.loopBound(n);
+        for (; a < end; a += L.length()) {
+            LongVector acc = LongVector.broadcast(L, Long.MAX_VALUE);
+            for (int b = 0; b < n; b++)
+                acc = acc.min(LongVector.fromArray(L, m, b * n + a).add(x[xo + b] + y[yo + b]));
+            acc.add(LongVector.fromArray(L, out, a)).intoArray(out, a);
+        }
+        for (; a < n; a++) {
+            long lo = Long.MAX_VALUE;
+            for (int b = 0; b < n; b++) lo = Math.min(lo, x[xo + b] + y[yo + b] + m[b * n + a]);
+            out[a] += lo;
+        }
+    }
+
+    static void add(long[] x, int xo, long[] y, int yo, long[] out, int oo, int n) {
+        int i   = 0;
+        int end = L.loopBound(n);
+        for (; i < end; i += L.length())
+            LongVector.fromArray(L, x, xo + i)
+                    .add(LongVector.fromArray(L, y, yo + i))
+                    .intoArray(out, oo + i);
+        for (; i < n; i++) out[oo + i] = x[xo + i] + y[yo + i];
+    }
+
+    static long dot(int[] x, int[] y) {
+        int  n   = x.length;
+        int  i   = 0;
+        int  end = I.loopBound(n);
+        long sum = 0;
+        if (end > 0) {
+            IntVector acc = IntVector.zero(I);
+            for (; i < end; i += I.length())
+                acc = acc.add(IntVector.fromArray(I, x, i).mul(IntVector.fromArray(I, y, i)));
+            sum = acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < n; i++) sum += x[i] * y[i];
+        return sum;
+    }
+}
@@ -6,6 +6,10 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -13,98 +17,174 @@ import java.time.format.DateTimeFormatter;
  * Venue Optimizer
  * ===============
  * Given a solved MatchMatrix, finds the optimal weekly venue assignment
- * for each pair-slot using exact backtracking with pruning.
+ * for each rotation block using exact branch-and-bound.
  *
- * Pair-slot model (8-court layout):
- *   PS0 → columns 0-1 (Main A + Main B)
- *   PS1 → columns 2-3 (Main C + Main D)
- *   PS2 → columns 4-5 (BP East + BP West)
- *   PS3 → columns 6-7 (Gerry East + West)
+ * The layout comes from Config: each venue owns a run of columns
+ * (VENUE_COURTS) and the columns are cut into rotation blocks
+ * (ROTATION_BLOCKS) that move between venues whole.  For the 8-court
+ * presets:
  *
- * Each week: 2 pair-slots → Main, 1 → BP, 1 → Gerry.
- * Valid assignments per week: C(4,2) × 2 = 12.
- * Search space (7 weeks): 12^7 ≈ 36M — solved in milliseconds with pruning.
+ *   Venues: Main = columns 0-3, BP = 4-5, Gerry = 6-7
+ *   Blocks: 0-1, 2-3, 4-5, 6-7  (pair-slots)
+ *
+ * Each week every block is placed at a venue so that each venue gets
+ * exactly its court count: 2 blocks → Main, 1 → BP, 1 → Gerry, i.e.
+ * C(4,2) × 2 = 12 valid assignments.  The 7-court preset has blocks
+ * 3/2/2, so only BP and Gerry can trade (2 assignments).  Any number of
+ * venues and blocks works; the valid assignments are enumerated once at
+ * class load.
+ *
+ * Search space (7 weeks, 12 assignments): 12^7 ≈ 36M — solved exactly in
+ * about a millisecond using integer scores, an admissible week-pair bound
+ * on the open weeks, best-first child ordering and a memo of visited count
+ * vectors.  The bound and table-building loops run through VenueKernel
+ * (SIMD when the Vector API module is available).
  */
 public class VenueOptimizer {
 
-    // ── Venue indices ──────────────────────────────────────────────────────────
-    private static final int MAIN  = 0;
-    private static final int BP    = 1;
-    private static final int GERRY = 2;
+    // ── Layout (derived from Config at class load) ─────────────────────────────
+    static final String[] VENUE_NAMES;
+    static final int      N_VENUES;
+    static final int[]    VENUE_COURTS;
+    static final int[]    BLOCK_START;    // first column of each rotation block
+    static final int[]    BLOCK_WIDTH;
+    static final int[]    COLUMN_BLOCK;   // [column] → rotation block
 
-    private static final int N_VENUES      = 3;
-    private static final int N_PAIR_SLOTS  = 4;
-    private static final int N_ASSIGNMENTS = 12; // C(4,2) × 2
+    // Cap on valid weekly assignments: the week-pair tables grow with its
+    // square, so larger layouts are reported unsupported instead.
+    static final int MAX_ASSIGNMENTS = 256;
 
     // ── Precomputed constants (derived from Config at class load) ──────────────
-    static final int[][]  VALID_ASSIGNMENTS;
-    static final int      ORIGINAL_AI;
+    static final int[][]  VALID_ASSIGNMENTS; // [ai][block] → venue
+    static final int      ORIGINAL_AI;       // every block at its home venue, or -1
     static final double[] TARGET;
-    static final int      MAIN_MIN, MAIN_MAX, BP_MIN, BP_MAX, GERRY_MIN, GERRY_MAX;
+    static final int      SCALE;          // total courts — makes targets integral
+    static final int[]    TARGET_SCALED;  // TARGET[v] × SCALE
+    static final int[]    RANGE_MIN, RANGE_MAX;
+    static final boolean  GAMES_SHARE_BLOCK; // a team's weekly games always play at one venue
 
     static {
-        // Build all 12 valid weekly assignments (venue index per pair-slot)
-        List<int[]> asgns = new ArrayList<>();
-        for (int i = 0; i < 4; i++) {
-            for (int j = i + 1; j < 4; j++) {
-                int[] rem = new int[2];
-                int ri = 0;
-                for (int k = 0; k < 4; k++) if (k != i && k != j) rem[ri++] = k;
-                for (int swap = 0; swap < 2; swap++) {
-                    int[] a = new int[4];
-                    a[i] = MAIN; a[j] = MAIN;
-                    a[rem[0]] = (swap == 0) ? BP    : GERRY;
-                    a[rem[1]] = (swap == 0) ? GERRY : BP;
-                    asgns.add(a);
-                }
-            }
+        VENUE_NAMES  = Config.getVenueNames();
+        VENUE_COURTS = Config.getVenueCourts();
+        N_VENUES     = VENUE_COURTS.length;
+        BLOCK_WIDTH  = Config.getRotationBlocks();
+
+        int tc = 0;
+        for (int c : VENUE_COURTS) tc += c;
+        int nCols = 0;
+        for (int b : BLOCK_WIDTH) nCols += b;
+
+        BLOCK_START  = new int[BLOCK_WIDTH.length];
+        COLUMN_BLOCK = new int[nCols];
+        for (int b = 0, j = 0; b < BLOCK_WIDTH.length; j += BLOCK_WIDTH[b++]) {
+            BLOCK_START[b] = j;
+            Arrays.fill(COLUMN_BLOCK, j, j + BLOCK_WIDTH[b], b);
         }
+
+        // All ways to fill every venue's courts with whole blocks
+        List<int[]> asgns = new ArrayList<>();
+        int[] free = VENUE_COURTS.clone();
+        placeBlocks(0, new int[BLOCK_WIDTH.length], free, asgns);
         VALID_ASSIGNMENTS = asgns.toArray(new int[0][]);
 
-        // Find original: PS0,PS1→Main; PS2→BP; PS3→Gerry
-        int origIdx = 0;
-        for (int ai = 0; ai < VALID_ASSIGNMENTS.length; ai++) {
-            int[] a = VALID_ASSIGNMENTS[ai];
-            if (a[0]==MAIN && a[1]==MAIN && a[2]==BP && a[3]==GERRY) { origIdx=ai; break; }
+        // Home venue of a block = the venue owning its columns in Config order
+        int[] home = new int[BLOCK_WIDTH.length];
+        for (int b = 0; b < home.length; b++) {
+            int v = 0, end = VENUE_COURTS.length > 0 ? VENUE_COURTS[0] : 0;
+            while (v < N_VENUES - 1 && BLOCK_START[b] >= end) end += VENUE_COURTS[++v];
+            home[b] = v;
         }
+        int origIdx = -1;
+        for (int ai = 0; ai < VALID_ASSIGNMENTS.length; ai++)
+            if (Arrays.equals(VALID_ASSIGNMENTS[ai], home)) { origIdx = ai; break; }
         ORIGINAL_AI = origIdx;
 
         // TARGET[v] = ideal games per team at venue v over the full season
         int nW = Config.getWeeks();
-        int mc = Config.getMainCourts();
-        int bc = Config.getBpCourts();
-        int gc = Config.getGerryCourts();
-        int tc = mc + bc + gc;
         int tg = nW * 2; // total games per team (2 per week)
-        TARGET = new double[]{ tg * (double)mc/tc, tg * (double)bc/tc, tg * (double)gc/tc };
-
-        // Valid range: nearest even-number interval spanning TARGET[v]
-        // (counts are always even since each pair-slot adds 2 games)
-        MAIN_MIN  = (int)(Math.floor(TARGET[MAIN]  / 2.0)) * 2;
-        MAIN_MAX  = (int)(Math.ceil( TARGET[MAIN]  / 2.0)) * 2;
-        BP_MIN    = (int)(Math.floor(TARGET[BP]    / 2.0)) * 2;
-        BP_MAX    = (int)(Math.ceil( TARGET[BP]    / 2.0)) * 2;
-        GERRY_MIN = (int)(Math.floor(TARGET[GERRY] / 2.0)) * 2;
-        GERRY_MAX = (int)(Math.ceil( TARGET[GERRY] / 2.0)) * 2;
+        TARGET        = new double[N_VENUES];
+        TARGET_SCALED = new int[N_VENUES];
+        RANGE_MIN     = new int[N_VENUES];
+        RANGE_MAX     = new int[N_VENUES];
+        SCALE         = Math.max(tc, 1);
+        GAMES_SHARE_BLOCK = gamesShareBlock(nCols);
+        int step = GAMES_SHARE_BLOCK ? 2 : 1;
+        for (int v = 0; v < N_VENUES; v++) {
+            TARGET[v]        = tg * (double) VENUE_COURTS[v] / SCALE;
+            TARGET_SCALED[v] = tg * VENUE_COURTS[v];
+            // Valid range: the nearest interval spanning TARGET[v] whose ends
+            // a team's count can actually take — even ones only when its two
+            // weekly games always move between venues together
+            RANGE_MIN[v] = (int) (Math.floor(TARGET[v] / step)) * step;
+            RANGE_MAX[v] = (int) (Math.ceil( TARGET[v] / step)) * step;
+        }
     }
 
-    // ── Support check ──────────────────────────────────────────────────────────
+    /**
+     * True if every court group's slots lie in columns of one rotation block,
+     * so both of a team's weekly games (which are in its group's slots) go to
+     * the same venue and its count at any venue is even.  Court group g owns
+     * the next list.size() slots of the week, its Phase 1 round then its
+     * Phase 2 round.
+     */
+    private static boolean gamesShareBlock(int nCols) {
+        int[][] sg       = Config.getScheduleGroups();
+        int[]   slotCol  = new int[MatchMatrix.MATCHES_PER_WEEK];
+        Arrays.fill(slotCol, -1);
+        for (int[] row : sg)
+            for (int j = 0; j < row.length; j++)
+                if (row[j] >= 0 && row[j] < slotCol.length && j < nCols) slotCol[row[j]] = j;
+
+        int slot = 0;
+        for (List<Integer> group : Config.getCourtGroups()) {
+            int block = -1;
+            for (int end = slot + group.size(); slot < end; slot++) {
+                if (slot >= slotCol.length || slotCol[slot] < 0) return false;
+                int b = COLUMN_BLOCK[slotCol[slot]];
+                if (block >= 0 && b != block) return false;
+                block = b;
+            }
+        }
+        return true;
+    }
 
-    /** Returns true for pair-slot (8-court, 4-pair-slot) layouts. */
-    private static boolean isPairSlotLayout() {
-        int tc = Config.getMainCourts() + Config.getBpCourts() + Config.getGerryCourts();
-        return MatchMatrix.MATCHES_PER_WEEK % N_PAIR_SLOTS == 0
-            && tc == N_PAIR_SLOTS * 2;
+    /** Places blocks b.. into the venues' free courts, collecting every full fill. */
+    private static void placeBlocks(int b, int[] asgn, int[] free, List<int[]> out) {
+        if (out.size() > MAX_ASSIGNMENTS) return;
+        if (b == asgn.length) {
+            for (int f : free) if (f != 0) return;
+            out.add(asgn.clone());
+            return;
+        }
+        for (int v = 0; v < free.length; v++) {
+            if (free[v] < BLOCK_WIDTH[b]) continue;
+            free[v] -= BLOCK_WIDTH[b];
+            asgn[b]  = v;
+            placeBlocks(b + 1, asgn, free, out);
+            free[v] += BLOCK_WIDTH[b];
+        }
     }
 
+    // ── Support check ──────────────────────────────────────────────────────────
+
     /**
-     * Returns true for any layout where each column maps to a fixed venue
-     * (pair-slot rotation OR fixed assignment).
+     * Returns true when Config describes a layout the optimizer can run:
+     * two schedule rows of equal width, venue courts and rotation blocks
+     * both covering exactly those columns, every block sitting inside one
+     * venue, and at most MAX_ASSIGNMENTS ways to fill the venues.
      */
     public static boolean isSupported() {
-        int tc = Config.getMainCourts() + Config.getBpCourts() + Config.getGerryCourts();
         int[][] sg = Config.getScheduleGroups();
-        return sg.length == 2 && tc == sg[0].length;
+        return sg.length == 2 && sg[0].length == sg[1].length
+            && SCALE == sg[0].length && COLUMN_BLOCK.length == sg[0].length
+            && ORIGINAL_AI >= 0 && VALID_ASSIGNMENTS.length <= MAX_ASSIGNMENTS;
+    }
+
+    /** True if every venue count of one team lies in its target range. */
+    static boolean inRange(int[] counts) {
+        for (int v = 0; v < N_VENUES; v++)
+            if (counts[v] < RANGE_MIN[v] || counts[v] > RANGE_MAX[v]) return false;
+        return true;
     }
 
     // ── Result holder ──────────────────────────────────────────────────────────
@@ -115,15 +195,13 @@ public class VenueOptimizer {
         final int[][][][] weekMatchPairs; // [nWeeks][nRows][nCols][2] — {teamA, teamB}
         final int[]       choices;        // best assignment index per week
         final double      score;
-        final int[][]     finalCounts;    // [nTeams][3]
+        final int[][]     finalCounts;    // [nTeams][N_VENUES]
         final int         teamsInRange;   // count of teams meeting all venue targets
         final int         nTeams;
         final int         nWeeks;
-        final boolean     pairSlot;       // true = 4-pair-slot layout; false = fixed-main layout
 
         OptResult(int[][][][] weekMatchPairs, int[] choices, double score,
-                  int[][] finalCounts, int teamsInRange, int nTeams, int nWeeks,
-                  boolean pairSlot) {
+                  int[][] finalCounts, int teamsInRange, int nTeams, int nWeeks) {
             this.weekMatchPairs = weekMatchPairs;
             this.choices        = choices;
             this.score          = score;
@@ -131,7 +209,6 @@ public class VenueOptimizer {
             this.teamsInRange   = teamsInRange;
             this.nTeams         = nTeams;
             this.nWeeks         = nWeeks;
-            this.pairSlot       = pairSlot;
         }
     }
 
@@ -142,289 +219,643 @@ public class VenueOptimizer {
      * Returns null if the current Config is not a supported layout.
      */
     public static OptResult optimize(MatchMatrix matches) {
+        return optimize(matches, null);
+    }
+
+    /**
+     * As optimize(matches), with the search split across pool (see
+     * solveParallel).  A null pool searches on the calling thread.
+     */
+    public static OptResult optimize(MatchMatrix matches, ForkJoinPool pool) {
         if (!isSupported()) return null;
-        if (!isPairSlotLayout()) return optimizeFixed(matches);
+        return optimize(weekMatchPairs(matches), pool);
+    }
 
+    /**
+     * Extracts weekMatchPairs[w][g][j] = {teamA, teamB} (teamA ≤ teamB): the
+     * match in schedule row g, column j of week w.  Requires isSupported().
+     */
+    static int[][][][] weekMatchPairs(MatchMatrix matches) {
         int      nWeeks        = Config.getWeeks();
-        int      nTeams        = MatchMatrix.MATCHES_PER_WEEK;
-        int      gamesPerWeek  = MatchMatrix.MATCHES_PER_WEEK;
         int[][]  schedGroups   = Config.getScheduleGroups();
         int      nRows         = schedGroups.length;    // 2
-        int      nCols         = schedGroups[0].length; // 8
-
-        // ── Build sorted match index list ──────────────────────────────────────
-        int totalListSize = MatchMatrix.TOTAL_MATCHES + 1;
-        List<Integer> matchIndexes = new ArrayList<>();
-        for (int k = 1; k < totalListSize; k++) {
-            for (int i = 1; i < totalListSize; i++) {
-                if (matches.getMatchValueByIndex(i) == k) {
-                    matchIndexes.add(i);
-                    break;
-                }
-            }
-        }
+        int      nCols         = schedGroups[0].length; // total courts
 
-        // ── Extract weekMatchPairs and pairTeams bitmasks ──────────────────────
-        // weekMatchPairs[w][g][j] = {teamA, teamB} (teamA ≤ teamB)
-        // pairTeams[w][ps]        = bitmask of teams in that pair-slot
+        int[][]     weeks          = matches.weekView();
         int[][][][] weekMatchPairs = new int[nWeeks][nRows][nCols][2];
-        int[][]     pairTeams      = new int[nWeeks][N_PAIR_SLOTS];
-
         for (int w = 0; w < nWeeks; w++) {
-            int base = w * gamesPerWeek;
             for (int g = 0; g < nRows; g++) {
                 for (int j = 0; j < nCols; j++) {
-                    int listPos  = base + schedGroups[g][j];
-                    int matchNum = matchIndexes.get(listPos);
-                    int tA = matches.getRow(matchNum);
-                    int tB = matches.getCol(matchNum);
-                    if (tA > tB) { int tmp = tA; tA = tB; tB = tmp; }
-                    weekMatchPairs[w][g][j][0] = tA;
-                    weekMatchPairs[w][g][j][1] = tB;
-                    pairTeams[w][j / 2] |= (1 << tA) | (1 << tB);
+                    int slot = schedGroups[g][j];
+                    weekMatchPairs[w][g][j][0] = weeks[w][2 * slot];
+                    weekMatchPairs[w][g][j][1] = weeks[w][2 * slot + 1];
                 }
             }
         }
+        return weekMatchPairs;
+    }
+
+    /** As optimize(matches, pool), on pairs already extracted by weekMatchPairs. */
+    static OptResult optimize(int[][][][] weekMatchPairs, ForkJoinPool pool) {
+        int         nWeeks = weekMatchPairs.length;
+        int[][][][] deltas = deltas(weekMatchPairs);
+
+        // ── Exact branch-and-bound search ──────────────────────────────────────
+        int[] bestChoices = new int[nWeeks];
+        solve(deltas, nWeeks, MatchMatrix.MATCHES_PER_WEEK, VALID_ASSIGNMENTS.length,
+              ORIGINAL_AI, bestChoices, pool);
+        return result(weekMatchPairs, deltas, bestChoices);
+    }
 
-        // ── Build deltas[w][ai][t][v] ──────────────────────────────────────────
-        // delta = +2 for each team in the pair-slot assigned to venue v
-        int[][][][] deltas = new int[nWeeks][N_ASSIGNMENTS][nTeams][N_VENUES];
+    /**
+     * deltas[w][ai][t][v] = games team t plays at venue v in week w under
+     * assignment ai: +1 per game, column j plays at the venue its block is
+     * assigned to.
+     */
+    static int[][][][] deltas(int[][][][] weekMatchPairs) {
+        int nWeeks  = weekMatchPairs.length;
+        int nTeams  = MatchMatrix.MATCHES_PER_WEEK;
+        int nRows   = weekMatchPairs[0].length;
+        int nCols   = weekMatchPairs[0][0].length;
+        int nAssign = VALID_ASSIGNMENTS.length;
+
+        int[][][][] deltas = new int[nWeeks][nAssign][nTeams][N_VENUES];
         for (int w = 0; w < nWeeks; w++) {
-            for (int ai = 0; ai < N_ASSIGNMENTS; ai++) {
-                for (int ps = 0; ps < N_PAIR_SLOTS; ps++) {
-                    int v    = VALID_ASSIGNMENTS[ai][ps];
-                    int mask = pairTeams[w][ps];
-                    while (mask != 0) {
-                        int t = Integer.numberOfTrailingZeros(mask);
-                        deltas[w][ai][t][v] += 2;
-                        mask &= mask - 1;
+            for (int ai = 0; ai < nAssign; ai++) {
+                int[] assign = VALID_ASSIGNMENTS[ai];
+                for (int g = 0; g < nRows; g++) {
+                    for (int j = 0; j < nCols; j++) {
+                        int v = assign[COLUMN_BLOCK[j]];
+                        deltas[w][ai][weekMatchPairs[w][g][j][0]][v]++;
+                        deltas[w][ai][weekMatchPairs[w][g][j][1]][v]++;
                     }
                 }
             }
         }
+        return deltas;
+    }
 
-        // ── Exact backtracking search ──────────────────────────────────────────
-        int[]    choices     = new int[nWeeks];
-        int[]    bestChoices = new int[nWeeks];
-        double[] bestScore   = { Double.MAX_VALUE };
-        int[][]  counts      = new int[nTeams][N_VENUES];
-        Arrays.fill(choices, ORIGINAL_AI);
-        Arrays.fill(bestChoices, ORIGINAL_AI);
-
-        backtrack(0, choices, bestChoices, counts, deltas, nWeeks, nTeams, bestScore);
+    /** Final counts, range check and score of the schedule under choices. */
+    static OptResult result(int[][][][] weekMatchPairs, int[][][][] deltas, int[] choices) {
+        int nWeeks = weekMatchPairs.length;
+        int nTeams = MatchMatrix.MATCHES_PER_WEEK;
 
-        // ── Accumulate final counts ────────────────────────────────────────────
         int[][] finalCounts = new int[nTeams][N_VENUES];
         for (int w = 0; w < nWeeks; w++)
             for (int t = 0; t < nTeams; t++)
                 for (int v = 0; v < N_VENUES; v++)
-                    finalCounts[t][v] += deltas[w][bestChoices[w]][t][v];
+                    finalCounts[t][v] += deltas[w][choices[w]][t][v];
 
-        int teamsInRange = 0;
+        int  teamsInRange = 0;
+        long score        = 0;
         for (int t = 0; t < nTeams; t++) {
-            int m = finalCounts[t][MAIN], b = finalCounts[t][BP], g = finalCounts[t][GERRY];
-            if (m >= MAIN_MIN && m <= MAIN_MAX
-             && b >= BP_MIN   && b <= BP_MAX
-             && g >= GERRY_MIN && g <= GERRY_MAX) teamsInRange++;
+            if (inRange(finalCounts[t])) teamsInRange++;
+            score += teamScore(finalCounts[t]);
         }
 
-        return new OptResult(weekMatchPairs, bestChoices, bestScore[0],
-                             finalCounts, teamsInRange, nTeams, nWeeks, true);
+        return new OptResult(weekMatchPairs, choices, unscale(score),
+                             finalCounts, teamsInRange, nTeams, nWeeks);
+    }
+
+    /** Scaled score of one team's season counts: Σ_v (SCALE·c − T)². */
+    static long teamScore(int[] counts) {
+        long sum = 0;
+        for (int v = 0; v < N_VENUES; v++) {
+            long d = (long) SCALE * counts[v] - TARGET_SCALED[v];
+            sum += d * d;
+        }
+        return sum;
     }
 
-    // ── Fixed-main layout optimizer (e.g. Config 2) ───────────────────────────
+    // ── Early reject ───────────────────────────────────────────────────────────
     //
-    // Main courts (columns 0..mainCourts-1) are always Main — no choice needed.
-    // The BP group (columns mainCourts..mainCourts+bpCourts-1) and Gerry group
-    // (columns mainCourts+bpCourts..totalCourts-1) can swap each week.
-    // choices[w] = 0 → BP group stays BP; 1 → BP group becomes Gerry (swap).
-
-    private static OptResult optimizeFixed(MatchMatrix matches) {
-        int nWeeks      = Config.getWeeks();
-        int nTeams      = MatchMatrix.MATCHES_PER_WEEK;
-        int gpw         = MatchMatrix.MATCHES_PER_WEEK;
-        int[][] sg      = Config.getScheduleGroups();
-        int nRows       = sg.length;
-        int nCols       = sg[0].length;
-        int mainCourts  = Config.getMainCourts();
-        int bpCourts    = Config.getBpCourts();
-
-        // Build sorted match index list
-        int totalListSize = MatchMatrix.TOTAL_MATCHES + 1;
-        List<Integer> matchIndexes = new ArrayList<>();
-        for (int k = 1; k < totalListSize; k++) {
-            for (int i = 1; i < totalListSize; i++) {
-                if (matches.getMatchValueByIndex(i) == k) {
-                    matchIndexes.add(i);
-                    break;
+    // Each week a team's games sit in fixed columns, so the fewest and most
+    // games any assignment can give it at venue v that week are known up
+    // front.  Summed over the season they bound the team's final count at v.
+    // A team whose bound misses a venue's target range ends up out of range
+    // whatever the optimizer picks — a necessary condition only: a schedule
+    // that passes may still miss after the exact search.
+
+    /**
+     * Returns the number of teams that no weekly assignment can bring within
+     * every venue's target range, so teamsInRange ≤ nTeams − the result.
+     * One pass over weekMatchPairs; microseconds against the exact search.
+     */
+    static int teamsOutOfReach(int[][][][] weekMatchPairs) {
+        int     nTeams  = MatchMatrix.MATCHES_PER_WEEK;
+        int     nBlocks = BLOCK_WIDTH.length;
+        int[][] inBlock = new int[nTeams][nBlocks]; // games this week per block
+        int[][] lo      = new int[nTeams][N_VENUES];
+        int[][] hi      = new int[nTeams][N_VENUES];
+        int[]   at      = new int[N_VENUES];
+        int[]   wlo     = new int[N_VENUES], whi = new int[N_VENUES];
+
+        for (int[][][] week : weekMatchPairs) {
+            for (int[] row : inBlock) Arrays.fill(row, 0);
+            for (int[][] row : week)
+                for (int j = 0; j < row.length; j++) {
+                    inBlock[row[j][0]][COLUMN_BLOCK[j]]++;
+                    inBlock[row[j][1]][COLUMN_BLOCK[j]]++;
+                }
+            for (int t = 0; t < nTeams; t++) {
+                Arrays.fill(wlo, Integer.MAX_VALUE);
+                Arrays.fill(whi, 0);
+                for (int[] assign : VALID_ASSIGNMENTS) {
+                    Arrays.fill(at, 0);
+                    for (int b = 0; b < nBlocks; b++) at[assign[b]] += inBlock[t][b];
+                    for (int v = 0; v < N_VENUES; v++) {
+                        wlo[v] = Math.min(wlo[v], at[v]);
+                        whi[v] = Math.max(whi[v], at[v]);
+                    }
                 }
+                for (int v = 0; v < N_VENUES; v++) { lo[t][v] += wlo[v]; hi[t][v] += whi[v]; }
             }
         }
 
-        // Extract weekMatchPairs[w][g][j] = {teamA, teamB}
-        int[][][][] weekMatchPairs = new int[nWeeks][nRows][nCols][2];
-        for (int w = 0; w < nWeeks; w++) {
-            int base = w * gpw;
-            for (int g = 0; g < nRows; g++) {
-                for (int j = 0; j < nCols; j++) {
-                    int matchNum = matchIndexes.get(base + sg[g][j]);
-                    int tA = matches.getRow(matchNum);
-                    int tB = matches.getCol(matchNum);
-                    if (tA > tB) { int tmp = tA; tA = tB; tB = tmp; }
-                    weekMatchPairs[w][g][j][0] = tA;
-                    weekMatchPairs[w][g][j][1] = tB;
-                }
+        int out = 0;
+        for (int t = 0; t < nTeams; t++)
+            for (int v = 0; v < N_VENUES; v++)
+                if (hi[t][v] < RANGE_MIN[v] || lo[t][v] > RANGE_MAX[v]) { out++; break; }
+        return out;
+    }
+
+    // ── Exact branch-and-bound search ──────────────────────────────────────────
+    //
+    // Scores are kept as integers by scaling every count by the total court
+    // count: (tc·c − T)² with T = tg·courts is tc² · (c − TARGET)².
+    //
+    // With c[t][v] = Σ_w x[w][t][v] (games gained in week w), expanding the
+    // square splits the season score into per-week and week-pair terms:
+    //
+    //   score = Σ T² + Σ_w unary[w][a_w] + Σ_{w<u} pair[w][u][a_w][a_u]
+    //
+    // unary  = Σ_t,v (tc²·x² − 2·tc·T·x)      — one week on its own
+    // pair   = 2·tc² · Σ_t,v x_w · x_u          — two weeks sharing teams/venues
+    //
+    // Weeks are assigned in order.  For every open week u the search keeps
+    // acc[u][a] = unary[u][a] + Σ pair with the weeks already fixed, so the
+    // cost of a child is one lookup.  The bound adds, per open week, the best
+    // acc plus the cheapest pairing with each later open week (rest[u][a]);
+    // every remaining pair is counted once, so the bound never over-estimates.
+
+    /**
+     * Solves the weekly assignment problem exactly.
+     * deltas[w][ai][t][v] = games team t gains at venue v if week w uses
+     * assignment ai.  seedAi is the starting incumbent, so ties resolve to
+     * it.  Returns the optimal scaled score; the argmin is written to
+     * bestChoices.
+     */
+    static long solve(int[][][][] deltas, int nWeeks, int nTeams, int nAssign,
+                      int seedAi, int[] bestChoices) {
+        Model model = new Model(deltas, nWeeks, nTeams, nAssign);
+
+        Arrays.fill(bestChoices, seedAi);
+        long incumbent = model.improve(bestChoices);
+
+        Search s = new Search(model, bestChoices, incumbent);
+        s.run(0, model.constant);
+        return s.bestScore;
+    }
+
+    /** As solve(), split across pool when it is non-null. */
+    static long solve(int[][][][] deltas, int nWeeks, int nTeams, int nAssign,
+                      int seedAi, int[] bestChoices, ForkJoinPool pool) {
+        if (pool == null || nWeeks < 3)
+            return solve(deltas, nWeeks, nTeams, nAssign, seedAi, bestChoices);
+        return solveParallel(deltas, nWeeks, nTeams, nAssign, seedAi, bestChoices, pool);
+    }
+
+    // ── Parallel search ───────────────────────────────────────────────────────
+    //
+    // The first one or two weeks are fixed per branch (enough branches to keep
+    // every pool thread busy) and each branch runs its own Search below them.
+    // All branches prune against one AtomicLong incumbent, so a good leaf in
+    // any branch tightens every other.  The optimum score is the same as the
+    // sequential search; among tied optima the earliest branch wins.
+
+    private static final int BRANCHES_PER_THREAD = 4;
+
+    static long solveParallel(int[][][][] deltas, int nWeeks, int nTeams, int nAssign,
+                              int seedAi, int[] bestChoices, ForkJoinPool pool) {
+        Model model = new Model(deltas, nWeeks, nTeams, nAssign);
+
+        Arrays.fill(bestChoices, seedAi);
+        AtomicLong shared = new AtomicLong(model.improve(bestChoices));
+
+        int depth  = 1;
+        int wanted = pool.getParallelism() * BRANCHES_PER_THREAD;
+        if (nWeeks > 2 && branchCount(model, 1) < wanted) depth = 2;
+
+        List<Branch> branches = new ArrayList<>();
+        int[] prefix = new int[depth];
+        for (int a = 0; a < nAssign; a++) {
+            if (!model.firstWeek[a]) continue;
+            prefix[0] = a;
+            if (depth == 1) { branches.add(new Branch(model, prefix.clone(), shared)); continue; }
+            for (int b = 0; b < nAssign; b++) {
+                prefix[1] = b;
+                branches.add(new Branch(model, prefix.clone(), shared));
             }
         }
 
-        // deltas[w][swap][t][v]: swap=0 → original, swap=1 → BP/Gerry swapped
-        int[][][][] deltas = new int[nWeeks][2][nTeams][N_VENUES];
-        for (int w = 0; w < nWeeks; w++) {
-            for (int swap = 0; swap < 2; swap++) {
-                for (int g = 0; g < nRows; g++) {
-                    for (int j = 0; j < nCols; j++) {
-                        int v;
-                        if (j < mainCourts) {
-                            v = MAIN;
-                        } else if (j < mainCourts + bpCourts) {
-                            v = (swap == 0) ? BP : GERRY;
-                        } else {
-                            v = (swap == 0) ? GERRY : BP;
-                        }
-                        int tA = weekMatchPairs[w][g][j][0];
-                        int tB = weekMatchPairs[w][g][j][1];
-                        deltas[w][swap][tA][v]++;
-                        deltas[w][swap][tB][v]++;
-                    }
-                }
+        pool.invoke(new RecursiveAction() {
+            @Override protected void compute() { ForkJoinTask.invokeAll(branches); }
+        });
+
+        long best = shared.get();
+        for (Branch br : branches) {
+            if (br.search.foundScore == best) {
+                System.arraycopy(br.search.bestChoices, 0, bestChoices, 0, nWeeks);
+                break;
             }
         }
+        return best;
+    }
 
-        // Backtrack over 2^nWeeks choices
-        int[]    choices     = new int[nWeeks];
-        int[]    bestChoices = new int[nWeeks];
-        double[] bestScore   = { Double.MAX_VALUE };
-        int[][]  counts      = new int[nTeams][N_VENUES];
-
-        backtrackFixed(0, choices, bestChoices, counts, deltas, nWeeks, nTeams, bestScore);
+    private static int branchCount(Model model, int depth) {
+        int first = 0;
+        for (boolean f : model.firstWeek) if (f) first++;
+        return depth == 1 ? first : first * model.nAssign;
+    }
 
-        int[][] finalCounts = new int[nTeams][N_VENUES];
-        for (int w = 0; w < nWeeks; w++)
-            for (int t = 0; t < nTeams; t++)
-                for (int v = 0; v < N_VENUES; v++)
-                    finalCounts[t][v] += deltas[w][bestChoices[w]][t][v];
+    /** One fixed-prefix subtree of the parallel search. */
+    @SuppressWarnings("serial") // never serialized; ForkJoinTask is Serializable only by inheritance
+    private static final class Branch extends RecursiveAction {
+        final Search search;
+        final int[]  prefix;
 
-        int teamsInRange = 0;
-        for (int t = 0; t < nTeams; t++) {
-            int m = finalCounts[t][MAIN], b = finalCounts[t][BP], gv = finalCounts[t][GERRY];
-            if (m >= MAIN_MIN && m <= MAIN_MAX
-             && b >= BP_MIN   && b <= BP_MAX
-             && gv >= GERRY_MIN && gv <= GERRY_MAX) teamsInRange++;
+        Branch(Model model, int[] prefix, AtomicLong shared) {
+            this.search        = new Search(model, new int[model.nWeeks], shared.get());
+            this.search.shared = shared;
+            this.prefix        = prefix;
         }
 
-        return new OptResult(weekMatchPairs, bestChoices, bestScore[0],
-                             finalCounts, teamsInRange, nTeams, nWeeks, false);
+        @Override
+        protected void compute() {
+            search.runPrefix(prefix);
+        }
     }
 
-    private static void backtrackFixed(
-            int week, int[] choices, int[] bestChoices,
-            int[][] counts, int[][][][] deltas,
-            int nWeeks, int nTeams, double[] bestScore) {
+    /** Converts a scaled integer score back to squared deviation in games. */
+    static double unscale(long score) {
+        return score / ((double) SCALE * SCALE);
+    }
 
-        if (week == nWeeks) {
-            double sc = 0.0;
+    /** Unary and week-pair score tables for one problem instance. */
+    private static final class Model {
+        final int      nWeeks, nTeams, nAssign;
+        final long     constant;  // Σ_t,v T² plus the table offsets below
+        final long[][] unary;     // [w][a]
+        final long[][] pair;      // [w·nWeeks + u][a·nAssign + b], w < u
+        final long[][] pairT;     // pair transposed: [w·nWeeks + u][b·nAssign + a]
+        final long[][] rest;      // [u][a] Σ_{u'>u} min_b pair[u][u'][a][b]
+        final int[][][] didx;     // [w][a][t] team state increment (memo key)
+        final boolean[] firstWeek; // [a] labels worth trying in week 0
+
+        Model(int[][][][] deltas, int nWeeks, int nTeams, int nAssign) {
+            this.nWeeks  = nWeeks;
+            this.nTeams  = nTeams;
+            this.nAssign = nAssign;
+
+            long sc2 = (long) SCALE * SCALE;
+            long c   = 0;
+            for (int v = 0; v < N_VENUES; v++) c += (long) TARGET_SCALED[v] * TARGET_SCALED[v];
+            long base = c * nTeams;
+
+            // Deltas flattened per (week, label) to [t·N_VENUES + v] rows
+            int[][] flat = new int[nWeeks * nAssign][nTeams * N_VENUES];
+            int[]   tgt  = new int[nTeams * N_VENUES];
+            for (int w = 0; w < nWeeks; w++)
+                for (int a = 0; a < nAssign; a++)
+                    for (int t = 0; t < nTeams; t++)
+                        System.arraycopy(deltas[w][a][t], 0, flat[w * nAssign + a], t * N_VENUES, N_VENUES);
             for (int t = 0; t < nTeams; t++)
-                for (int v = 0; v < N_VENUES; v++) {
-                    double d = counts[t][v] - TARGET[v];
-                    sc += d * d;
+                System.arraycopy(TARGET_SCALED, 0, tgt, t * N_VENUES, N_VENUES);
+
+            unary = new long[nWeeks][nAssign];
+            for (int w = 0; w < nWeeks; w++)
+                for (int a = 0; a < nAssign; a++) {
+                    int[] x = flat[w * nAssign + a];
+                    unary[w][a] = sc2 * VenueKernel.dot(x, x) - 2L * SCALE * VenueKernel.dot(x, tgt);
+                }
+
+            pair = new long[nWeeks * nWeeks][];
+            for (int w = 0; w < nWeeks; w++)
+                for (int u = w + 1; u < nWeeks; u++) {
+                    long[] p = new long[nAssign * nAssign];
+                    for (int a = 0; a < nAssign; a++)
+                        for (int b = 0; b < nAssign; b++)
+                            p[a * nAssign + b] = 2 * sc2
+                                    * VenueKernel.dot(flat[w * nAssign + a], flat[u * nAssign + b]);
+                    pair[w * nWeeks + u] = p;
+                }
+
+            // Shift every table to a minimum of zero (the offsets move into the
+            // constant) so partial bound sums only grow and can stop early.
+            long shift = 0;
+            for (int w = 0; w < nWeeks; w++) {
+                long lo = Long.MAX_VALUE;
+                for (long x : unary[w]) lo = Math.min(lo, x);
+                for (int a = 0; a < nAssign; a++) unary[w][a] -= lo;
+                shift += lo;
+                for (int u = w + 1; u < nWeeks; u++) {
+                    long[] p = pair[w * nWeeks + u];
+                    lo = Long.MAX_VALUE;
+                    for (long x : p) lo = Math.min(lo, x);
+                    for (int i = 0; i < p.length; i++) p[i] -= lo;
+                    shift += lo;
                 }
-            if (sc < bestScore[0]) {
-                bestScore[0] = sc;
-                System.arraycopy(choices, 0, bestChoices, 0, nWeeks);
             }
-            return;
-        }
+            constant = base + shift;
+
+            pairT = new long[nWeeks * nWeeks][];
+            for (int w = 0; w < nWeeks; w++)
+                for (int u = w + 1; u < nWeeks; u++) {
+                    long[] p = pair[w * nWeeks + u], q = new long[p.length];
+                    for (int a = 0; a < nAssign; a++)
+                        for (int b = 0; b < nAssign; b++) q[b * nAssign + a] = p[a * nAssign + b];
+                    pairT[w * nWeeks + u] = q;
+                }
 
-        for (int swap = 0; swap < 2; swap++) {
-            for (int t = 0; t < nTeams; t++)
-                for (int v = 0; v < N_VENUES; v++)
-                    counts[t][v] += deltas[week][swap][t][v];
-            choices[week] = swap;
+            rest = new long[nWeeks][nAssign];
+            for (int w = 0; w < nWeeks; w++)
+                for (int u = w + 1; u < nWeeks; u++) {
+                    long[] p = pair[w * nWeeks + u];
+                    for (int a = 0; a < nAssign; a++) {
+                        long lo = Long.MAX_VALUE;
+                        for (int b = 0; b < nAssign; b++) lo = Math.min(lo, p[a * nAssign + b]);
+                        rest[w][a] += lo;
+                    }
+                }
 
-            boolean prune = false;
-            if (bestScore[0] < Double.MAX_VALUE) {
-                double wt = (double)(week + 1) / nWeeks;
-                double partial = 0.0;
+            // Team state index = the counts of every venue but the last as
+            // base-D digits (the last is implied by the games played), with D
+            // past the largest possible count
+            int D = 2 * nWeeks + 1;
+            for (int w = 0; w < nWeeks; w++)
                 for (int t = 0; t < nTeams; t++)
-                    for (int v = 0; v < N_VENUES; v++) {
-                        double d = counts[t][v] - TARGET[v] * wt;
-                        partial += d * d;
+                    for (int a = 0; a < nAssign; a++)
+                        D = Math.max(D, games(deltas[w][a][t]) * nWeeks + 1);
+            int digits = Math.max(N_VENUES - 1, 0);
+            didx = new int[nWeeks][nAssign][nTeams];
+            for (int w = 0; w < nWeeks; w++)
+                for (int a = 0; a < nAssign; a++)
+                    for (int t = 0; t < nTeams; t++) {
+                        int idx = 0;
+                        for (int v = 0; v < digits; v++) idx = idx * D + deltas[w][a][t][v];
+                        didx[w][a][t] = idx;
+                    }
+
+            firstWeek = new boolean[nAssign];
+            Arrays.fill(firstWeek, true);
+            int[] mirror = mirrorWeek0(deltas);
+            if (mirror != null)
+                for (int a = 0; a < nAssign; a++) firstWeek[a] = mirror[a] >= a;
+        }
+
+        /**
+         * When two venues have the same target and every week's assignment
+         * set is closed under swapping them, swapping the two venues in every
+         * week leaves the score unchanged.  Returns the swap partner of each
+         * week-0 label for the first such pair of venues so the search can
+         * skip one of each mirrored pair, or null if there is no such
+         * symmetry.
+         */
+        private int[] mirrorWeek0(int[][][][] deltas) {
+            for (int p = 0; p < N_VENUES; p++)
+                for (int q = p + 1; q < N_VENUES; q++) {
+                    if (TARGET_SCALED[p] != TARGET_SCALED[q]) continue;
+                    int[] mirror = mirrorWeek0(deltas, p, q);
+                    if (mirror != null) return mirror;
+                }
+            return null;
+        }
+
+        private int[] mirrorWeek0(int[][][][] deltas, int p, int q) {
+            int[] mirror0 = null;
+            for (int w = 0; w < nWeeks; w++) {
+                int[] mirror = new int[nAssign];
+                for (int a = 0; a < nAssign; a++) {
+                    mirror[a] = -1;
+                    for (int b = 0; b < nAssign && mirror[a] < 0; b++) {
+                        boolean same = true;
+                        for (int t = 0; t < nTeams && same; t++) {
+                            int[] x = deltas[w][a][t], y = deltas[w][b][t];
+                            for (int v = 0; v < N_VENUES && same; v++)
+                                same = x[v] == y[v == p ? q : v == q ? p : v];
+                        }
+                        if (same) mirror[a] = b;
                     }
-                if (partial >= bestScore[0]) prune = true;
+                    if (mirror[a] < 0) return null;
+                }
+                if (w == 0) mirror0 = mirror;
             }
+            return mirror0;
+        }
 
-            if (!prune)
-                backtrackFixed(week + 1, choices, bestChoices, counts, deltas,
-                               nWeeks, nTeams, bestScore);
+        private static int games(int[] delta) {
+            int sum = 0;
+            for (int x : delta) sum += x;
+            return sum;
+        }
 
-            for (int t = 0; t < nTeams; t++)
-                for (int v = 0; v < N_VENUES; v++)
-                    counts[t][v] -= deltas[week][swap][t][v];
+        /** Exact scaled score of a full assignment. */
+        long evaluate(int[] choices) {
+            long sum = constant;
+            for (int w = 0; w < nWeeks; w++) {
+                sum += unary[w][choices[w]];
+                for (int u = w + 1; u < nWeeks; u++)
+                    sum += pair[w * nWeeks + u][choices[w] * nAssign + choices[u]];
+            }
+            return sum;
+        }
+
+        /**
+         * Week-by-week descent: re-picks each week's assignment with the other
+         * weeks fixed until no single change helps.  Updates choices in place
+         * and returns its score — a cheap starting incumbent.
+         */
+        long improve(int[] choices) {
+            long    score    = evaluate(choices);
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int w = 0; w < nWeeks; w++) {
+                    int keep = choices[w];
+                    for (int a = 0; a < nAssign; a++) {
+                        if (a == keep) continue;
+                        choices[w] = a;
+                        long sc = evaluate(choices);
+                        if (sc < score) { score = sc; keep = a; improved = true; }
+                    }
+                    choices[w] = keep;
+                }
+            }
+            return score;
         }
     }
 
-    // ── Backtracking search ────────────────────────────────────────────────────
+    private static final class Search {
+        final Model      model;
+        final int        nWeeks, nTeams, nAssign;
+        final long[][]   acc;        // [depth][u·nAssign + a]
+        final long[][]   childBound; // [depth][a] scratch
+        final int[][]    order;      // [depth][a] scratch
+        final int[]      choices;
+        final int[]      bestChoices;
+        final int[]      state;      // per-team counts, the memo key
+        final StateSet   visited;
+        long             bestScore;
+        AtomicLong       shared;                  // parallel mode: incumbent of all branches
+        long             foundScore = Long.MAX_VALUE; // score of the leaf in bestChoices
+
+        Search(Model model, int[] bestChoices, long incumbent) {
+            this.model       = model;
+            this.nWeeks      = model.nWeeks;
+            this.nTeams      = model.nTeams;
+            this.nAssign     = model.nAssign;
+            this.acc         = new long[nWeeks + 1][nWeeks * nAssign];
+            this.childBound  = new long[nWeeks][nAssign];
+            this.order       = new int[nWeeks][nAssign];
+            this.choices     = new int[nWeeks];
+            this.bestChoices = bestChoices;
+            this.state       = new int[nTeams];
+            this.visited     = new StateSet(nTeams);
+            this.bestScore   = incumbent;
+            for (int u = 0; u < nWeeks; u++)
+                System.arraycopy(model.unary[u], 0, acc[0], u * nAssign, nAssign);
+        }
 
-    private static void backtrack(
-            int week, int[] choices, int[] bestChoices,
-            int[][] counts, int[][][][] deltas,
-            int nWeeks, int nTeams, double[] bestScore) {
+        /** Fixes weeks 0..prefix.length-1 to prefix and searches the rest. */
+        void runPrefix(int[] prefix) {
+            long exact = model.constant;
+            for (int w = 0; w < prefix.length; w++) {
+                int a = prefix[w];
+                for (int u = w + 1; u < nWeeks; u++)
+                    VenueKernel.add(acc[w], u * nAssign, model.pair[w * nWeeks + u], a * nAssign,
+                                    acc[w + 1], u * nAssign, nAssign);
+                int[] d = model.didx[w][a];
+                for (int t = 0; t < nTeams; t++) state[t] += d[t];
+                choices[w] = a;
+                exact += acc[w][w * nAssign + a];
+            }
+            run(prefix.length, exact);
+        }
 
-        if (week == nWeeks) {
-            double sc = 0.0;
-            for (int t = 0; t < nTeams; t++)
-                for (int v = 0; v < N_VENUES; v++) {
-                    double d = counts[t][v] - TARGET[v];
-                    sc += d * d;
+        /** exact = score of weeks 0..week-1 including the constant term. */
+        void run(int week, long exact) {
+            if (shared != null) bestScore = Math.min(bestScore, shared.get());
+            if (week == nWeeks) {
+                if (exact < bestScore) {
+                    bestScore  = exact;
+                    foundScore = exact;
+                    System.arraycopy(choices, 0, bestChoices, 0, nWeeks);
+                    if (shared != null) shared.accumulateAndGet(exact, Math::min);
                 }
-            if (sc < bestScore[0]) {
-                bestScore[0] = sc;
-                System.arraycopy(choices, 0, bestChoices, 0, nWeeks);
+                return;
+            }
+            // Identical count vectors have identical subtrees; the incumbent only
+            // improves, so a state already explored can never yield a better leaf.
+            if (week > 0 && !visited.add(state)) return;
+
+            long[] cur = acc[week];
+            long[] cb  = childBound[week];
+            int[]  ord = order[week];
+
+            // Best-first: bound every child, then visit in ascending order
+            for (int a = 0; a < nAssign; a++) cb[a] = exact + cur[week * nAssign + a];
+            for (int u = week + 1; u < nWeeks; u++)
+                VenueKernel.addMinPlus(cur, u * nAssign, model.rest[u], 0,
+                                       model.pairT[week * nWeeks + u], cb, nAssign);
+            for (int a = 0; a < nAssign; a++) {
+                if (week == 0 && !model.firstWeek[a]) cb[a] = Long.MAX_VALUE;
+                long bound = cb[a];
+                int k = a;
+                while (k > 0 && cb[ord[k - 1]] > bound) { ord[k] = ord[k - 1]; k--; }
+                ord[k] = a;
             }
-            return;
-        }
 
-        for (int ai = 0; ai < N_ASSIGNMENTS; ai++) {
-            // Apply delta
-            for (int t = 0; t < nTeams; t++) {
-                counts[t][MAIN]  += deltas[week][ai][t][MAIN];
-                counts[t][BP]    += deltas[week][ai][t][BP];
-                counts[t][GERRY] += deltas[week][ai][t][GERRY];
+            long[] nxt = acc[week + 1];
+            for (int k = 0; k < nAssign; k++) {
+                int a = ord[k];
+                if (cb[a] >= bestScore) break;
+
+                for (int u = week + 1; u < nWeeks; u++)
+                    VenueKernel.add(cur, u * nAssign, model.pair[week * nWeeks + u], a * nAssign,
+                                    nxt, u * nAssign, nAssign);
+                int[] d = model.didx[week][a];
+                for (int t = 0; t < nTeams; t++) state[t] += d[t];
+                choices[week] = a;
+
+                run(week + 1, exact + cur[week * nAssign + a]);
+
+                for (int t = 0; t < nTeams; t++) state[t] -= d[t];
             }
-            choices[week] = ai;
+        }
+    }
 
-            // Pruning: scale partial counts to full-season estimate and compare
-            boolean prune = false;
-            if (bestScore[0] < Double.MAX_VALUE) {
-                double wt      = (double)(week + 1) / nWeeks;
-                double partial = 0.0;
-                for (int t = 0; t < nTeams; t++)
-                    for (int v = 0; v < N_VENUES; v++) {
-                        double d = counts[t][v] - TARGET[v] * wt;
-                        partial += d * d;
-                    }
-                if (partial >= bestScore[0]) prune = true;
+    /**
+     * Open-addressing set of team state vectors used as the week-level memo.
+     * Stops accepting new entries once full — the memo only saves work, so a
+     * miss simply means the subtree is searched again.
+     */
+    private static final class StateSet {
+        private static final int INITIAL_CAPACITY = 1 << 10; // powers of two
+        private static final int MAX_CAPACITY     = 1 << 16;
+
+        private final int width;
+        private int[]     keys;
+        private boolean[] used;
+        private int       size;
+
+        StateSet(int width) {
+            this.width = width;
+            this.keys  = new int[INITIAL_CAPACITY * width];
+            this.used  = new boolean[INITIAL_CAPACITY];
+        }
+
+        /** Returns false if the state was already present. */
+        boolean add(int[] state) {
+            int slot = find(state);
+            if (used[slot]) return false;
+            if (size >= used.length * 3 / 4) {
+                if (used.length >= MAX_CAPACITY) return true;
+                grow();
+                slot = find(state);
             }
+            used[slot] = true;
+            System.arraycopy(state, 0, keys, slot * width, width);
+            size++;
+            return true;
+        }
 
-            if (!prune)
-                backtrack(week + 1, choices, bestChoices, counts, deltas,
-                          nWeeks, nTeams, bestScore);
+        private int find(int[] state) {
+            int mask = used.length - 1;
+            int slot = hash(state, 0) & mask;
+            while (used[slot]
+                    && !Arrays.equals(keys, slot * width, slot * width + width, state, 0, width))
+                slot = (slot + 1) & mask;
+            return slot;
+        }
 
-            // Undo delta
-            for (int t = 0; t < nTeams; t++) {
-                counts[t][MAIN]  -= deltas[week][ai][t][MAIN];
-                counts[t][BP]    -= deltas[week][ai][t][BP];
-                counts[t][GERRY] -= deltas[week][ai][t][GERRY];
+        private int hash(int[] a, int from) {
+            long h = 0x9E3779B97F4A7C15L;
+            for (int t = 0; t < width; t++) h = (h ^ a[from + t]) * 0xBF58476D1CE4E5B9L;
+            return (int) (h ^ (h >>> 31));
+        }
+
+        private void grow() {
+            int[]     oldKeys = keys;
+            boolean[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            used = new boolean[oldUsed.length * 2];
+            int mask = used.length - 1;
+            for (int i = 0; i < oldUsed.length; i++) {
+                if (!oldUsed[i]) continue;
+                int slot = hash(oldKeys, i * width) & mask;
+                while (used[slot]) slot = (slot + 1) & mask;
+                used[slot] = true;
+                System.arraycopy(oldKeys, i * width, keys, slot * width, width);
             }
         }
     }
@@ -432,72 +863,52 @@ public class VenueOptimizer {
     // ── Output ─────────────────────────────────────────────────────────────────
 
     public static void appendSummary(OptResult result, String matchesFile) {
+        appendSummary(result, matchesFile, SUMMARY_FILE, LocalDateTime.now());
+    }
+
+    /** Appends the summary line for a schedule saved at savedAt to summaryFile. */
+    static void appendSummary(OptResult result, String matchesFile, String summaryFile, LocalDateTime savedAt) {
         int    ok    = result.teamsInRange;
         int    n     = result.nTeams;
         String bar   = "\u2588".repeat(ok) + "\u2591".repeat(n - ok);
         String flag  = (ok >= n - 1) ? "  \u2605" : "";  // ★ for 15/16 or 16/16
-        String ts    = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        String ts    = savedAt.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
 
-        try (PrintWriter pw = new PrintWriter(new FileWriter(SUMMARY_FILE, true))) {
+        try (PrintWriter pw = new PrintWriter(new FileWriter(summaryFile, true))) {
             pw.printf("%-52s  %2d/%d  %s%s  [%s]%n", matchesFile, ok, n, bar, flag, ts);
         } catch (IOException e) {
-            System.err.println("VenueOptimizer: could not write " + SUMMARY_FILE + ": " + e.getMessage());
+            System.err.println("VenueOptimizer: could not write " + summaryFile + ": " + e.getMessage());
         }
     }
 
     /**
      * Returns the ordered column indices (j into weekMatchPairs[w][g][j]) for week w,
-     * arranged as: all Main courts, then all BP courts, then all Gerry courts.
+     * arranged venue by venue in Config order, each venue's blocks left to right.
      */
     private static int[] buildColOrder(OptResult result, int w) {
-        int mc = Config.getMainCourts();
-        int bc = Config.getBpCourts();
-        int gc = Config.getGerryCourts();
-        int tc = mc + bc + gc;
-        int[] colOrder = new int[tc];
-        int pos = 0;
-
-        if (result.pairSlot) {
-            int[] assign = VALID_ASSIGNMENTS[result.choices[w]];
-            for (int v = 0; v < N_VENUES; v++)
-                for (int ps = 0; ps < N_PAIR_SLOTS; ps++)
-                    if (assign[ps] == v) {
-                        colOrder[pos++] = ps * 2;
-                        colOrder[pos++] = ps * 2 + 1;
-                    }
-        } else {
-            // Main courts are always cols 0..mc-1
-            for (int j = 0; j < mc; j++) colOrder[pos++] = j;
-            // BP and Gerry groups may be swapped
-            boolean swapped = result.choices[w] == 1;
-            int[] bpCols    = swapped ? seq(mc + bc, mc + bc + gc) : seq(mc, mc + bc);
-            int[] gerryCols = swapped ? seq(mc, mc + bc)           : seq(mc + bc, mc + bc + gc);
-            for (int j : bpCols)    colOrder[pos++] = j;
-            for (int j : gerryCols) colOrder[pos++] = j;
-        }
+        int[] assign   = VALID_ASSIGNMENTS[result.choices[w]];
+        int[] colOrder = new int[COLUMN_BLOCK.length];
+        int   pos      = 0;
+        for (int v = 0; v < N_VENUES; v++)
+            for (int b = 0; b < assign.length; b++)
+                if (assign[b] == v)
+                    for (int j = 0; j < BLOCK_WIDTH[b]; j++) colOrder[pos++] = BLOCK_START[b] + j;
         return colOrder;
     }
 
-    private static int[] seq(int from, int to) {
-        int[] a = new int[to - from];
-        for (int i = 0; i < a.length; i++) a[i] = from + i;
-        return a;
-    }
-
     public static void writeOutput(OptResult result, String sourceFile, String outPath) {
-        int mc = Config.getMainCourts();
-        int bc = Config.getBpCourts();
-        int gc = Config.getGerryCourts();
-        int tc = mc + bc + gc;
+        int tc    = COLUMN_BLOCK.length;
         int nRows = result.weekMatchPairs[0].length; // 2 for all configs
 
         try (PrintWriter pw = new PrintWriter(new FileWriter(outPath))) {
 
             // ── Header row (tab-separated venue column names) ──────────────────
             pw.print("\t\t");
-            for (int i = 1; i <= mc; i++) { if (i > 1) pw.print("\t"); pw.print("Main " + i); }
-            for (int i = 1; i <= bc; i++) { pw.print("\t"); pw.print("BP " + i); }
-            for (int i = 1; i <= gc; i++) { pw.print("\t"); pw.print("Gerry " + i); }
+            for (int v = 0, col = 0; v < N_VENUES; v++)
+                for (int i = 1; i <= VENUE_COURTS[v]; i++) {
+                    if (col++ > 0) pw.print("\t");
+                    pw.print(VENUE_NAMES[v] + " " + i);
+                }
             pw.println();
 
             // ── Weekly schedule grid ───────────────────────────────────────────
@@ -519,34 +930,36 @@ public class VenueOptimizer {
             // ── Team venue counts table ────────────────────────────────────────
             int totalGames = result.nWeeks * 2;
             pw.println();
-            pw.printf("TARGETS  Main %d\u2013%d   BP %d\u2013%d   Gerry %d\u2013%d   (per team, %d games)%n",
-                MAIN_MIN, MAIN_MAX, BP_MIN, BP_MAX, GERRY_MIN, GERRY_MAX, totalGames);
+            List<String> targets = new ArrayList<>();
+            for (int v = 0; v < N_VENUES; v++)
+                targets.add(String.format("%s %d\u2013%d", VENUE_NAMES[v], RANGE_MIN[v], RANGE_MAX[v]));
+            pw.printf("TARGETS  %s   (per team, %d games)%n", String.join("   ", targets), totalGames);
             pw.printf("Optimality score (sum of squared deviations): %.1f%n", result.score);
             pw.println();
             pw.println("TEAM VENUE COUNTS");
-            pw.printf("  %-6s %6s %6s %6s %6s  %s%n", "Team", "Main", "BP", "Gerry", "Total", "Status");
-            pw.println("  -----------------------------------------");
+            String rule = "  " + "-".repeat(20 + 7 * N_VENUES);
+            pw.printf("  %-6s", "Team");
+            for (String name : VENUE_NAMES) pw.printf(" %6s", name);
+            pw.printf(" %6s  %s%n", "Total", "Status");
+            pw.println(rule);
             for (int t = 0; t < result.nTeams; t++) {
-                int m  = result.finalCounts[t][MAIN];
-                int b  = result.finalCounts[t][BP];
-                int g  = result.finalCounts[t][GERRY];
-                int tot = m + b + g;
-                boolean ok = m >= MAIN_MIN && m <= MAIN_MAX
-                          && b >= BP_MIN   && b <= BP_MAX
-                          && g >= GERRY_MIN && g <= GERRY_MAX;
+                int[] counts = result.finalCounts[t];
+                int   tot    = 0;
+                pw.printf("  T%2d ", t + 1);
+                for (int v = 0; v < N_VENUES; v++) { pw.printf(" %6d", counts[v]); tot += counts[v]; }
                 String status;
-                if (ok) {
+                if (inRange(counts)) {
                     status = "\u2713";
                 } else {
                     List<String> reasons = new ArrayList<>();
-                    if (m < MAIN_MIN || m > MAIN_MAX)   reasons.add("Main="  + m);
-                    if (b < BP_MIN   || b > BP_MAX)     reasons.add("BP="    + b);
-                    if (g < GERRY_MIN || g > GERRY_MAX) reasons.add("Gerry=" + g);
+                    for (int v = 0; v < N_VENUES; v++)
+                        if (counts[v] < RANGE_MIN[v] || counts[v] > RANGE_MAX[v])
+                            reasons.add(VENUE_NAMES[v] + "=" + counts[v]);
                     status = "\u2717  (" + String.join(", ", reasons) + ")";
                 }
-                pw.printf("  T%2d  %6d %6d %6d %6d  %s%n", t + 1, m, b, g, tot, status);
+                pw.printf(" %6d  %s%n", tot, status);
             }
-            pw.println("  -----------------------------------------");
+            pw.println(rule);
             pw.printf("  Teams within target range:  %d/%d%n", result.teamsInRange, result.nTeams);
 
         } catch (IOException e) {
@@ -0,0 +1,81 @@
+package com.example;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Worker Counters
+ * ===============
+ * The search workers' per-attempt metrics, one padded cell per worker so
+ * that no two workers ever write the same cache line.
+ *
+ *   cells:  [pad][worker 0: ATTEMPTS CURRENT_WEEK PEAK_WEEK … pad][worker 1 …]…[pad]
+ *            ╰── STRIDE longs (128 bytes: a line and its prefetch pair) ──╯
+ *
+ * Only worker t writes its own cell, with plain arithmetic and an opaque
+ * store — no compare-and-set, no lock.  Readers (the status display,
+ * /metrics) read every cell opaquely and aggregate: totals for counts,
+ * maxima for peaks.  A read may miss the last few increments of a worker;
+ * it never sees a torn value.
+ */
+final class WorkerCounters {
+
+    // Counters in a worker's cell
+    static final int ATTEMPTS     = 0; // search-loop passes
+    static final int CURRENT_WEEK = 1; // 0-based week the last attempt was building when it ended
+    static final int PEAK_WEEK    = 2; // ... and the furthest any attempt reached
+
+    private static final int STRIDE = 16;
+
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int    nWorkers;
+    private final long[] cells;
+
+    WorkerCounters(int nWorkers) {
+        this.nWorkers = nWorkers;
+        this.cells    = new long[(nWorkers + 2) * STRIDE];
+    }
+
+    int workers() { return nWorkers; }
+
+    // ── Writing: worker's own cell only ───────────────────────────────────────
+
+    void add(int worker, int counter, long delta) {
+        int i = at(worker, counter);
+        CELLS.setOpaque(cells, i, cells[i] + delta);
+    }
+
+    void set(int worker, int counter, long value) {
+        CELLS.setOpaque(cells, at(worker, counter), value);
+    }
+
+    void max(int worker, int counter, long value) {
+        int i = at(worker, counter);
+        if (value > cells[i]) CELLS.setOpaque(cells, i, value);
+    }
+
+    // ── Reading: any thread ───────────────────────────────────────────────────
+
+    long get(int worker, int counter) {
+        return (long) CELLS.getOpaque(cells, at(worker, counter));
+    }
+
+    /** counter summed over all workers. */
+    long sum(int counter) {
+        long total = 0;
+        for (int w = 0; w < nWorkers; w++) total += get(w, counter);
+        return total;
+    }
+
+    /** The largest value of counter over all workers. */
+    long max(int counter) {
+        long most = 0;
+        for (int w = 0; w < nWorkers; w++) most = Math.max(most, get(w, counter));
+        return most;
+    }
+
+    private static int at(int worker, int counter) {
+        return (worker + 1) * STRIDE + counter;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Worker CPU
+ * ==========
+ * CPU time and allocated bytes of each search worker, from ThreadMXBean,
+ * so rates can be given per CPU-second rather than per wall-clock second.
+ * On a shared host a descheduled worker's wall clock keeps running; its
+ * CPU clock does not.
+ *
+ * Each worker calls register() once from its own thread; readers query
+ * any time after.  A worker not yet registered, or a JVM that cannot
+ * measure a quantity, reads as 0 — check cpuSupported() and
+ * allocationSupported() before showing one.  A worker that has exited
+ * reads as the last value seen for it, so totals survive shutdown.
+ */
+final class WorkerCpu {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // HotSpot's extension adds per-thread allocation counters
+    private static final com.sun.management.ThreadMXBean ALLOCATION =
+        THREADS instanceof com.sun.management.ThreadMXBean t ? t : null;
+
+    private final AtomicLongArray threadIds; // [worker] → Thread.threadId(), 0 until registered
+    private final AtomicLongArray lastCpu;   // [worker] → last cpuNanos() read
+    private final AtomicLongArray lastAlloc; // [worker] → last allocatedBytes() read
+
+    WorkerCpu(int nWorkers) {
+        this.threadIds = new AtomicLongArray(nWorkers);
+        this.lastCpu   = new AtomicLongArray(nWorkers);
+        this.lastAlloc = new AtomicLongArray(nWorkers);
+        if (THREADS.isThreadCpuTimeSupported() && !THREADS.isThreadCpuTimeEnabled())
+            THREADS.setThreadCpuTimeEnabled(true);
+        if (ALLOCATION != null && ALLOCATION.isThreadAllocatedMemorySupported()
+                && !ALLOCATION.isThreadAllocatedMemoryEnabled())
+            ALLOCATION.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    static boolean cpuSupported() {
+        return THREADS.isThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    }
+
+    static boolean allocationSupported() {
+        return ALLOCATION != null && ALLOCATION.isThreadAllocatedMemorySupported()
+               && ALLOCATION.isThreadAllocatedMemoryEnabled();
+    }
+
+    /** Records the calling thread as worker. */
+    void register(int worker) {
+        threadIds.set(worker, Thread.currentThread().threadId());
+    }
+
+    int workers() { return threadIds.length(); }
+
+    /** CPU time worker has used, in nanoseconds. */
+    long cpuNanos(int worker) {
+        long id = threadIds.get(worker);
+        if (id == 0 || !cpuSupported()) return 0;
+        return lastCpu.accumulateAndGet(worker, THREADS.getThreadCpuTime(id), Math::max);
+    }
+
+    /** Bytes worker has allocated on the heap. */
+    long allocatedBytes(int worker) {
+        long id = threadIds.get(worker);
+        if (id == 0 || !allocationSupported()) return 0;
+        return lastAlloc.accumulateAndGet(worker, ALLOCATION.getThreadAllocatedBytes(id), Math::max);
+    }
+
+    long totalCpuNanos() {
+        long total = 0;
+        for (int w = 0; w < workers(); w++) total += cpuNanos(w);
+        return total;
+    }
+
+    long totalAllocatedBytes() {
+        long total = 0;
+        for (int w = 0; w < workers(); w++) total += allocatedBytes(w);
+        return total;
+    }
+}